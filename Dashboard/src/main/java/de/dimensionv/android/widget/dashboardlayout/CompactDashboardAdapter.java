@@ -0,0 +1,160 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Adapter binding the DashboardLayout's views straight from a
+// CompactDashboardItemStore.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.View.OnClickListener;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+import java.util.AbstractList;
+
+/**
+ * <p>A {@link DashboardAdapter} backed by a {@link CompactDashboardItemStore} instead of a list
+ * of item objects.</p>
+ * <p>The views are bound straight from the store's arrays. {@link DashboardItem} objects are only
+ * created when they are explicitly requested through {@link #getItem(int)} or {@link #getList()},
+ * and then only as lightweight views onto the store. Apart from that, the adapter behaves like any
+ * other {@code DashboardAdapter}, so it can be used with the {@link DashboardLayout} as usual.</p>
+ * <p>After modifying the store, the adapter's observers have to be notified as usual, e.g. using
+ * {@link #notifyItemChanged(int)}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class CompactDashboardAdapter extends DashboardAdapter<DashboardItem> {
+
+  private final CompactDashboardItemStore store;
+
+  /**
+   * Creates a {@code CompactDashboardAdapter} for the given store.
+   *
+   * @param store The store holding the items.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for items without their own {@code OnClickListener}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public CompactDashboardAdapter(CompactDashboardItemStore store, LayoutInflater inflater,
+                                 OnClickListener onClickListener) {
+    super(new StoreList(store), inflater, onClickListener);
+    this.store = store;
+  }
+
+  @Override
+  public boolean canMoveItems() {
+    return false;
+  }
+
+  @Override
+  public int getCount() {
+    return store.size();
+  }
+
+  @Override
+  public Object getItem(int position) {
+    return store.getItem(position);
+  }
+
+  @Override
+  public long getItemId(int position) {
+    return store.getID(position);
+  }
+
+  /**
+   * Binds the item at the given position straight from the store.
+   *
+   * @see DashboardAdapter#getView(int, View, ViewGroup)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public View getView(int position, View convertView, ViewGroup parent) {
+    Button button = obtainButton(convertView, parent);
+
+    button.setId(View.NO_ID);
+    button.setText(store.getText(position));
+    button.setCompoundDrawablesWithIntrinsicBounds(null, store.getIconDrawable(position), null, null);
+    button.setEnabled(store.isEnabled(position));
+    if(store.getOnClickListener(position) != null) {
+      button.setOnClickListener(store.getItem(position));
+    } else {
+      button.setOnClickListener(getOnClickListener());
+    }
+
+    return button;
+  }
+
+  /**
+   * Returns the store holding the items of this adapter.
+   *
+   * @return The store.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public CompactDashboardItemStore getStore() {
+    return store;
+  }
+
+  /**
+   * Read-only list view of the store, as returned by {@link #getList()}.
+   */
+  private static final class StoreList extends AbstractList<DashboardItem> {
+    private final CompactDashboardItemStore store;
+
+    StoreList(CompactDashboardItemStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public DashboardItem get(int location) {
+      return store.getItem(location);
+    }
+
+    @Override
+    public int size() {
+      return store.size();
+    }
+  }
+}
@@ -0,0 +1,482 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Struct-of-arrays store keeping the properties of large numbers of dashboard
+// items in parallel primitive arrays.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.BitSet;
+
+/**
+ * <p>Memory-efficient store for large numbers of dashboard items.</p>
+ * <p>Instead of one object per item, the store keeps the items' properties in parallel arrays: the
+ * IDs in a {@code long[]}, the enabled-states in a {@link BitSet}, the labels as indices into a
+ * shared table of distinct strings, and the icons as handles of a {@link DashboardIconRegistry}.
+ * {@link DashboardItem} objects are only created on demand, as lightweight views onto a single
+ * index of the store.</p>
+ * <p>The string table is indexed by an open-addressing hash table of plain {@code int}s, so
+ * interning a label doesn't box anything. Each string is reference-counted, and released as soon
+ * as no item uses it anymore. Its entry in the table is then reused for the next new label.</p>
+ * <p>Items are addressed by their index, which equals their position in a
+ * {@link CompactDashboardAdapter}. The store is not thread-safe.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class CompactDashboardItemStore {
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private final DashboardIconRegistry iconRegistry;
+
+  private long[] ids;
+  private int[] labels;
+  private int[] iconsEnabled;
+  private int[] iconsDisabled;
+  private final BitSet enabled = new BitSet();
+  private int size = 0;
+
+  private String[] stringTable = new String[DEFAULT_CAPACITY];
+  private int[] stringRefs = new int[DEFAULT_CAPACITY];
+  private int stringCount = 0;
+  private int[] freeStrings = new int[DEFAULT_CAPACITY];
+  private int freeStringCount = 0;
+  /** Open-addressing hash table of {@code stringTable}-indices plus one, {@code 0} if empty. */
+  private int[] stringSlots = new int[DEFAULT_CAPACITY * 2];
+  private int liveStrings = 0;
+
+  private final SparseArray<DashboardItem.OnClickListener> listeners = new SparseArray<DashboardItem.OnClickListener>();
+
+  /**
+   * Creates a new, empty store.
+   *
+   * @param iconRegistry The registry the icon-handles of the items belong to.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public CompactDashboardItemStore(DashboardIconRegistry iconRegistry) {
+    this(iconRegistry, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new, empty store with the given initial capacity.
+   *
+   * @param iconRegistry The registry the icon-handles of the items belong to.
+   * @param capacity The number of items the store can take before it has to grow.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public CompactDashboardItemStore(DashboardIconRegistry iconRegistry, int capacity) {
+    this.iconRegistry = iconRegistry;
+    capacity = Math.max(1, capacity);
+    ids = new long[capacity];
+    labels = new int[capacity];
+    iconsEnabled = new int[capacity];
+    iconsDisabled = new int[capacity];
+  }
+
+  /**
+   * Appends an item to the store.
+   *
+   * @param id The ID of the item.
+   * @param label The text of the item.
+   * @param iconEnabled The handle of the icon for the {@code enabled == true} state.
+   * @param iconDisabled The handle of the icon for the {@code enabled == false} state, or
+   *                     {@link DashboardIconRegistry#NO_ICON} to use the enabled icon.
+   * @param enabled The state of the item.
+   *
+   * @return The index of the new item.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int add(long id, String label, int iconEnabled, int iconDisabled, boolean enabled) {
+    ensureCapacity(size + 1);
+    int index = size++;
+    ids[index] = id;
+    labels[index] = intern(label);
+    iconsEnabled[index] = iconEnabled;
+    iconsDisabled[index] = iconDisabled;
+    this.enabled.set(index, enabled);
+    return index;
+  }
+
+  /**
+   * Returns the number of items in the store.
+   *
+   * @return The number of items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the ID of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getID(int index) {
+    checkIndex(index);
+    return ids[index];
+  }
+
+  /**
+   * Returns the text of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public String getText(int index) {
+    checkIndex(index);
+    return stringTable[labels[index]];
+  }
+
+  /**
+   * Sets the text of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setText(int index, String label) {
+    checkIndex(index);
+    int oldLabel = labels[index];
+    labels[index] = intern(label);
+    release(oldLabel);
+  }
+
+  /**
+   * Returns the currently valid icon of the item at the given index, depending on its state.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Drawable getIconDrawable(int index) {
+    checkIndex(index);
+    int handle = iconsEnabled[index];
+    if(!enabled.get(index) && (iconsDisabled[index] != DashboardIconRegistry.NO_ICON)) {
+      handle = iconsDisabled[index];
+    }
+    return iconRegistry.get(handle);
+  }
+
+  /**
+   * Sets the icon-handles of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setIcons(int index, int iconEnabled, int iconDisabled) {
+    checkIndex(index);
+    iconsEnabled[index] = iconEnabled;
+    iconsDisabled[index] = iconDisabled;
+  }
+
+  /**
+   * Returns the state of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isEnabled(int index) {
+    checkIndex(index);
+    return enabled.get(index);
+  }
+
+  /**
+   * Sets the state of the item at the given index.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setEnabled(int index, boolean state) {
+    checkIndex(index);
+    enabled.set(index, state);
+  }
+
+  /**
+   * Returns the {@link DashboardItem.OnClickListener} of the item at the given index.
+   *
+   * @return The listener, or {@code null} if the item has none.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardItem.OnClickListener getOnClickListener(int index) {
+    checkIndex(index);
+    return listeners.get(index);
+  }
+
+  /**
+   * Sets the {@link DashboardItem.OnClickListener} of the item at the given index. Listeners are
+   * kept in a sparse structure, so items without a listener don't cost anything.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setOnClickListener(int index, DashboardItem.OnClickListener listener) {
+    checkIndex(index);
+    if(listener == null) {
+      listeners.remove(index);
+    } else {
+      listeners.put(index, listener);
+    }
+  }
+
+  /**
+   * Returns the registry the icon-handles of this store belong to.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardIconRegistry getIconRegistry() {
+    return iconRegistry;
+  }
+
+  /**
+   * Returns a lightweight {@link DashboardItem} view onto the item at the given index. The view
+   * holds no state of its own, all calls are forwarded to the store.
+   *
+   * @param index The index of the item.
+   *
+   * @return The item view.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardItem getItem(int index) {
+    checkIndex(index);
+    return new ItemView(this, index);
+  }
+
+  /**
+   * Returns the index of the given label in the string table, adding it if necessary, and counts
+   * the new reference to it.
+   */
+  private int intern(String label) {
+    if(label == null) {
+      label = "";
+    }
+    int mask = stringSlots.length - 1;
+    int slot = stringSlot(label, mask);
+    while(stringSlots[slot] != 0) {
+      int stringIndex = stringSlots[slot] - 1;
+      if(stringTable[stringIndex].equals(label)) {
+        stringRefs[stringIndex]++;
+        return stringIndex;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int stringIndex;
+    if(freeStringCount > 0) {
+      stringIndex = freeStrings[--freeStringCount];
+    } else {
+      if(stringCount == stringTable.length) {
+        int capacity = stringCount * 2;
+        String[] newTable = new String[capacity];
+        System.arraycopy(stringTable, 0, newTable, 0, stringCount);
+        stringTable = newTable;
+        int[] newRefs = new int[capacity];
+        System.arraycopy(stringRefs, 0, newRefs, 0, stringCount);
+        stringRefs = newRefs;
+      }
+      stringIndex = stringCount++;
+    }
+    stringTable[stringIndex] = label;
+    stringRefs[stringIndex] = 1;
+    stringSlots[slot] = stringIndex + 1;
+    if(++liveStrings * 2 > stringSlots.length) {
+      rehashStrings(stringSlots.length * 2);
+    }
+    return stringIndex;
+  }
+
+  /**
+   * Drops a reference to the string at the given index, releasing the string if it was the last
+   * one.
+   */
+  private void release(int stringIndex) {
+    if(--stringRefs[stringIndex] > 0) {
+      return;
+    }
+    int mask = stringSlots.length - 1;
+    int slot = stringSlot(stringTable[stringIndex], mask);
+    while(stringSlots[slot] != (stringIndex + 1)) {
+      slot = (slot + 1) & mask;
+    }
+    // backward-shift deletion, so no probe sequence gets interrupted
+    int next = slot;
+    while(true) {
+      next = (next + 1) & mask;
+      if(stringSlots[next] == 0) {
+        break;
+      }
+      int home = stringSlot(stringTable[stringSlots[next] - 1], mask);
+      boolean inBetween = (slot <= next) ? ((slot < home) && (home <= next))
+          : ((slot < home) || (home <= next));
+      if(!inBetween) {
+        stringSlots[slot] = stringSlots[next];
+        slot = next;
+      }
+    }
+    stringSlots[slot] = 0;
+    liveStrings--;
+
+    stringTable[stringIndex] = null;
+    if(freeStringCount == freeStrings.length) {
+      int[] newFree = new int[freeStringCount * 2];
+      System.arraycopy(freeStrings, 0, newFree, 0, freeStringCount);
+      freeStrings = newFree;
+    }
+    freeStrings[freeStringCount++] = stringIndex;
+  }
+
+  private void rehashStrings(int capacity) {
+    stringSlots = new int[capacity];
+    int mask = capacity - 1;
+    for(int i = 0; i < stringCount; i++) {
+      if(stringTable[i] == null) {
+        continue;
+      }
+      int slot = stringSlot(stringTable[i], mask);
+      while(stringSlots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      stringSlots[slot] = i + 1;
+    }
+  }
+
+  private static int stringSlot(String label, int mask) {
+    int h = label.hashCode();
+    // spread the bits, as String hashes of similar labels only differ in the low bits
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    return h & mask;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if(capacity <= ids.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, ids.length * 2);
+    long[] newIds = new long[newCapacity];
+    System.arraycopy(ids, 0, newIds, 0, size);
+    ids = newIds;
+    labels = grow(labels, newCapacity);
+    iconsEnabled = grow(iconsEnabled, newCapacity);
+    iconsDisabled = grow(iconsDisabled, newCapacity);
+  }
+
+  private int[] grow(int[] array, int newCapacity) {
+    int[] newArray = new int[newCapacity];
+    System.arraycopy(array, 0, newArray, 0, size);
+    return newArray;
+  }
+
+  private void checkIndex(int index) {
+    if((index < 0) || (index >= size)) {
+      throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + size);
+    }
+  }
+
+  /**
+   * Lightweight {@link DashboardItem} forwarding all calls to a single index of the store.
+   */
+  private static final class ItemView implements DashboardItem {
+    private final CompactDashboardItemStore store;
+    private final int index;
+
+    ItemView(CompactDashboardItemStore store, int index) {
+      this.store = store;
+      this.index = index;
+    }
+
+    @Override
+    public Drawable getIconDrawable() {
+      return store.getIconDrawable(index);
+    }
+
+    @Override
+    public CharSequence getText() {
+      return store.getText(index);
+    }
+
+    @Override
+    public long getID() {
+      return store.getID(index);
+    }
+
+    @Override
+    public void setEnabled(boolean state) {
+      store.setEnabled(index, state);
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return store.isEnabled(index);
+    }
+
+    @Override
+    public boolean hasOnClickListener() {
+      return store.getOnClickListener(index) != null;
+    }
+
+    @Override
+    public void setOnClickListener(OnClickListener listener) {
+      store.setOnClickListener(index, listener);
+    }
+
+    @Override
+    public void onClick(View v) {
+      OnClickListener listener = store.getOnClickListener(index);
+      if(listener != null) {
+        listener.onClick(this);
+      }
+    }
+  }
+}
@@ -52,9 +52,14 @@ import android.graphics.drawable.Drawable;
  * the {@link DashboardItemContent} interface, the data required for representing a
  * true {@link DashboardItem}, like ID, displayed text and the icons, is extracted from
  * the content-object.</p>
+ * <p>Resolving the icons of the content-object can be deferred until they are requested for the
+ * first time, see {@link #ContainerDashboardItem(Object, boolean, boolean)}. This is what the
+ * {@link DashboardItemBuilder} uses for building large numbers of items.</p>
+ * <p>To avoid copying the data of the content-object altogether, see the
+ * {@link DelegatingDashboardItem}.</p>
  *
  * @author Volkmar Seifert
- * @version 1.0
+ * @version 1.1
  * @since API 1.0.0
  */
 public class ContainerDashboardItem<T> extends SimpleDashboardItem {
@@ -62,7 +67,12 @@ public class ContainerDashboardItem<T> extends SimpleDashboardItem {
   /**
    * The content-object
    */
-  private T content = null;
+  protected T content = null;
+
+  /**
+   * {@code true} while the icons still have to be fetched from the content-object.
+   */
+  private boolean iconsDeferred = false;
 
   /**
    * <p>Creates a new {@code ContainerDashboardItem} from the given {@code content}-object, and sets
@@ -81,7 +91,48 @@ public class ContainerDashboardItem<T> extends SimpleDashboardItem {
    * @since API 1.0.0
    */
   public ContainerDashboardItem(T content, boolean enabled) {
-    this(((DashboardItemContent) content).getID(), ((DashboardItemContent) content).getText(), ((DashboardItemContent) content).getIconDrawableEnabled(), ((DashboardItemContent) content).getIconDrawableDisabled(), enabled);
+    this((DashboardItemContent) content, null, enabled, false);
+  }
+
+  /**
+   * <p>Creates a new {@code ContainerDashboardItem} from the given {@code content}-object, sets it
+   * as the content-object, and sets the item into the state given by the parameter
+   * {@code enabled}.</p>
+   * <p>If {@code deferIcons} is {@code true}, the icons are not fetched from the content-object
+   * now, but when they are requested for the first time, e.g. when the item gets bound to a view.
+   * </p>
+   *
+   * @param content The content-object to be used and added. Must implement the {@code DashboardItemContent}-interface.
+   * @param enabled The state that defines whether the item is active and clickable ({@code true}) or not ({@code false}).
+   * @param deferIcons {@code true} to fetch the icons when they are needed, {@code false} to fetch them now.
+   *
+   * @throws ClassCastException A {@code ClassCastException} will be thrown in case the
+   *                            content-object does not implement the {@code DashboardItemContent} interface.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public ContainerDashboardItem(T content, boolean enabled, boolean deferIcons) {
+    this((DashboardItemContent) content, content, enabled, deferIcons);
+  }
+
+  /**
+   * Common implementation of the constructors taking a content-object, casting it only once.
+   *
+   * @param source The content-object, as {@code DashboardItemContent}.
+   * @param content The content-object to be set, or {@code null} to not set it.
+   * @param enabled The state of the item.
+   * @param deferIcons {@code true} to fetch the icons when they are needed.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private ContainerDashboardItem(DashboardItemContent source, T content, boolean enabled, boolean deferIcons) {
+    super(source.getID(), source.getText(),
+        deferIcons ? null : source.getIconDrawableEnabled(),
+        deferIcons ? null : source.getIconDrawableDisabled(), enabled);
+    this.content = content;
+    this.iconsDeferred = deferIcons;
   }
 
   /**
@@ -173,6 +224,17 @@ public class ContainerDashboardItem<T> extends SimpleDashboardItem {
     return content;
   }
 
+  @Override
+  public Drawable getIconDrawable() {
+    if(iconsDeferred) {
+      iconsDeferred = false;
+      DashboardItemContent dic = (DashboardItemContent) content;
+      setIconEnabled(dic.getIconDrawableEnabled());
+      setIconDisabled(dic.getIconDrawableDisabled());
+    }
+    return super.getIconDrawable();
+  }
+
   /**
    * Sets the content-object for this {@code ContainerDashboardItem} object.
    *
@@ -183,6 +245,7 @@ public class ContainerDashboardItem<T> extends SimpleDashboardItem {
    */
   public void setContent(T content) {
     this.content = content;
+    iconsDeferred = false;
     if(content instanceof DashboardItemContent) {
       DashboardItemContent dic = (DashboardItemContent) content;
       setID(dic.getID());
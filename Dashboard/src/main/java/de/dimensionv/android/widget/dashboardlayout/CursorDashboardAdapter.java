@@ -0,0 +1,310 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Adapter binding the DashboardLayout's views straight from a Cursor, without
+// materializing the rows as DashboardItems.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.res.Resources;
+import android.database.Cursor;
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.View.OnClickListener;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * <p>A {@link DashboardAdapter} that binds its views straight from a {@link Cursor}, without
+ * copying the rows into {@link DashboardItem}s first.</p>
+ * <p>The ID, the text and the icon of each item are read from configurable columns. The icon
+ * column is expected to contain the resource-ID of a {@code Drawable}, or {@code 0} / {@code NULL}
+ * for no icon. The indices of the columns are looked up once per cursor, not per row.</p>
+ * <p>After a requery, the new cursor is handed over using {@link #swapCursor(Cursor)}, which
+ * rebinds the existing views in place instead of rebuilding the whole layout.</p>
+ * <p>The adapter neither closes the cursor nor watches it for changes. Both is up to the owner of
+ * the cursor, e.g. a {@code Loader}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class CursorDashboardAdapter extends DashboardAdapter<DashboardItem> {
+
+  private final CursorHolder holder;
+
+  /**
+   * Creates a {@code CursorDashboardAdapter}.
+   *
+   * @param cursor The cursor. May be {@code null}, in which case the adapter is empty.
+   * @param idColumn The name of the column containing the item's ID.
+   * @param textColumn The name of the column containing the item's text.
+   * @param iconColumn The name of the column containing the icon's resource-ID, or {@code null}
+   *                   if the items don't have icons.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for clicks on the items.
+   *
+   * @throws IllegalArgumentException If one of the columns does not exist in the cursor.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public CursorDashboardAdapter(Cursor cursor, String idColumn, String textColumn,
+                                String iconColumn, LayoutInflater inflater,
+                                OnClickListener onClickListener) {
+    this(new CursorHolder(idColumn, textColumn, iconColumn,
+        inflater.getContext().getResources()), cursor, inflater, onClickListener);
+  }
+
+  private CursorDashboardAdapter(CursorHolder holder, Cursor cursor, LayoutInflater inflater,
+                                 OnClickListener onClickListener) {
+    super(new CursorList(holder), inflater, onClickListener);
+    this.holder = holder;
+    holder.setCursor(cursor);
+  }
+
+  @Override
+  public boolean canMoveItems() {
+    return false;
+  }
+
+  @Override
+  public int getCount() {
+    return holder.getCount();
+  }
+
+  /**
+   * Returns a snapshot of the row at the given position. The snapshot is created on each call, so
+   * for binding views, {@link #getView(int, View, ViewGroup)} reads the cursor directly instead.
+   *
+   * @see android.widget.Adapter#getItem(int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public Object getItem(int position) {
+    return holder.createItem(position);
+  }
+
+  @Override
+  public long getItemId(int position) {
+    holder.moveTo(position);
+    return holder.cursor.getLong(holder.idIndex);
+  }
+
+  @Override
+  public boolean hasStableIds() {
+    return true;
+  }
+
+  /**
+   * Binds the row at the given position straight from the cursor.
+   *
+   * @see DashboardAdapter#getView(int, View, ViewGroup)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public View getView(int position, View convertView, ViewGroup parent) {
+    Button button = obtainButton(convertView, parent);
+
+    holder.moveTo(position);
+    Cursor cursor = holder.cursor;
+    button.setId(View.NO_ID);
+    button.setText(cursor.getString(holder.textIndex));
+    button.setCompoundDrawablesWithIntrinsicBounds(null, holder.getIcon(), null, null);
+    button.setEnabled(true);
+    button.setOnClickListener(getOnClickListener());
+
+    return button;
+  }
+
+  /**
+   * Returns the cursor currently used by this adapter.
+   *
+   * @return The cursor, or {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Cursor getCursor() {
+    return holder.cursor;
+  }
+
+  /**
+   * <p>Swaps in a new cursor, e.g. after a requery, and returns the old one without closing
+   * it.</p>
+   * <p>The rows both cursors have in common are rebound in place. Only the rows the new cursor has
+   * in addition or less result in views being added or removed, so a requery never rebuilds the
+   * whole layout. The column indices are only looked up again if the columns of the new cursor
+   * differ from the old ones.</p>
+   *
+   * @param newCursor The new cursor. May be {@code null}.
+   *
+   * @return The previous cursor, or {@code null}.
+   *
+   * @throws IllegalArgumentException If one of the columns does not exist in the new cursor.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Cursor swapCursor(Cursor newCursor) {
+    Cursor oldCursor = holder.cursor;
+    if(newCursor == oldCursor) {
+      return oldCursor;
+    }
+
+    int oldCount = holder.getCount();
+    holder.setCursor(newCursor);
+    int newCount = holder.getCount();
+
+    int common = Math.min(oldCount, newCount);
+    if(common > 0) {
+      notifyItemRangeChanged(0, common);
+    }
+    for(int i = oldCount - 1; i >= newCount; i--) {
+      notifyItemRemoved(i);
+    }
+    for(int i = oldCount; i < newCount; i++) {
+      notifyItemInserted(i);
+    }
+    return oldCursor;
+  }
+
+  /**
+   * Swaps in a new cursor, and closes the old one.
+   *
+   * @param newCursor The new cursor. May be {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void changeCursor(Cursor newCursor) {
+    Cursor oldCursor = swapCursor(newCursor);
+    if((oldCursor != null) && (oldCursor != newCursor)) {
+      oldCursor.close();
+    }
+  }
+
+  /**
+   * Holds the cursor and the cached column indices.
+   */
+  private static final class CursorHolder {
+    final String idColumn;
+    final String textColumn;
+    final String iconColumn;
+    final Resources resources;
+
+    Cursor cursor = null;
+    String[] columnNames = null;
+    int idIndex = -1;
+    int textIndex = -1;
+    int iconIndex = -1;
+
+    CursorHolder(String idColumn, String textColumn, String iconColumn, Resources resources) {
+      this.idColumn = idColumn;
+      this.textColumn = textColumn;
+      this.iconColumn = iconColumn;
+      this.resources = resources;
+    }
+
+    void setCursor(Cursor newCursor) {
+      cursor = newCursor;
+      if(newCursor == null) {
+        return;
+      }
+      String[] newColumnNames = newCursor.getColumnNames();
+      if(Arrays.equals(columnNames, newColumnNames)) {
+        return;
+      }
+      idIndex = newCursor.getColumnIndexOrThrow(idColumn);
+      textIndex = newCursor.getColumnIndexOrThrow(textColumn);
+      iconIndex = (iconColumn != null) ? newCursor.getColumnIndexOrThrow(iconColumn) : -1;
+      columnNames = newColumnNames;
+    }
+
+    int getCount() {
+      return (cursor != null) ? cursor.getCount() : 0;
+    }
+
+    void moveTo(int position) {
+      if((cursor == null) || !cursor.moveToPosition(position)) {
+        throw new IllegalStateException("Couldn't move cursor to position " + position);
+      }
+    }
+
+    Drawable getIcon() {
+      if((iconIndex < 0) || cursor.isNull(iconIndex)) {
+        return null;
+      }
+      int resId = cursor.getInt(iconIndex);
+      return (resId != 0) ? resources.getDrawable(resId) : null;
+    }
+
+    DashboardItem createItem(int position) {
+      moveTo(position);
+      return new SimpleDashboardItem(cursor.getLong(idIndex), cursor.getString(textIndex),
+          getIcon(), null, true);
+    }
+  }
+
+  /**
+   * Read-only list view of the cursor's rows, as returned by {@link #getList()}. Each access
+   * creates a snapshot of the row.
+   */
+  private static final class CursorList extends AbstractList<DashboardItem> {
+    private final CursorHolder holder;
+
+    CursorList(CursorHolder holder) {
+      this.holder = holder;
+    }
+
+    @Override
+    public DashboardItem get(int location) {
+      return holder.createItem(location);
+    }
+
+    @Override
+    public int size() {
+      return holder.getCount();
+    }
+  }
+}
@@ -38,6 +38,7 @@
 
 package de.dimensionv.android.widget.dashboardlayout;
 
+import android.database.DataSetObserver;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
@@ -45,23 +46,52 @@ import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 import android.widget.Button;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * This is the adapter holding the elements in the DashboardLayout. Since it's template-based, it
  * can hold any object while ensuring type-safety, as long as the object's class is somehow derived
  * from DashboardItem. This class is a direct extension of Android's BaseAdapter class.
+ * <p/>
+ * Besides the coarse {@link #notifyDataSetChanged()}, the adapter offers fine-grained
+ * notifications for single inserts, removals, moves and content changes. A {@link DashboardLayout}
+ * observing the adapter applies those to the affected children only, instead of rebuilding all of
+ * them.
+ * <p/>
+ * The adapter maintains an index from item IDs to positions, which is built on the first call to
+ * {@link #getPositionForItemId(long)} and then updated by the fine-grained notifications, so
+ * looking up an item by its ID takes constant time.
  *
  * @author Volkmar Seifert
- * @version 1.0
+ * @version 1.1
  * @since API 1.0.0
  * @see android.widget.BaseAdapter
  * @see de.dimensionv.android.widget.dashboardlayout.DashboardItem
  */
 public class DashboardAdapter <T extends DashboardItem> extends BaseAdapter {
+
+  /**
+   * View type of a regular item, which is arranged in the grid of the {@link DashboardLayout}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public static final int ITEM_VIEW_TYPE_ITEM = 0;
+
+  /**
+   * View type of a header, which spans the full width of the {@link DashboardLayout}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public static final int ITEM_VIEW_TYPE_HEADER = 1;
+
   private List<T> items = null;
   private LayoutInflater inflater = null;
   private OnClickListener onClickListener = null;
+  private final ArrayList<DashboardDataSetObserver> dashboardObservers = new ArrayList<DashboardDataSetObserver>();
+  private DashboardIdIndex idIndex = null;
 
   /**
    * Creates a DashboardAdapter object with items, a given inflater to process the layout of the
@@ -139,25 +169,62 @@ public class DashboardAdapter <T extends DashboardItem> extends BaseAdapter {
    */
   @Override
   public View getView(int position, View convertView, ViewGroup parent) {
-    Button button = null;
-    if((convertView == null) || ! (convertView instanceof Button)) {
-      button = (Button) inflater.inflate(R.layout.dashboard_item, parent, false);
-    } else {
-      button = (Button) convertView;
-    }
+    Button button = obtainButton(convertView, parent);
 
     @SuppressWarnings("unchecked")
     T item = (T) getItem(position);
 
-    button.setId((int) item.getID());
+    // item IDs are 64 bit and synthetic for headers, so they can't serve as view IDs
+    button.setId(View.NO_ID);
     button.setText(item.getText());
     button.setCompoundDrawablesWithIntrinsicBounds(null, item.getIconDrawable(), null, null);
-    button.setEnabled(item.isEnabled());
+    button.setEnabled(isItemEnabled(item));
     button.setOnClickListener(item.hasOnClickListener() ? item : onClickListener);
 
     return button;
   }
 
+  /**
+   * Checks whether the view of the given item should be enabled: the item has to be enabled, and
+   * must not be marked as busy by its {@link DashboardClickDispatcher}, if it has one.
+   *
+   * @param item The item.
+   *
+   * @return {@code true} if the view should be enabled.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  protected boolean isItemEnabled(DashboardItem item) {
+    if(!item.isEnabled()) {
+      return false;
+    }
+    if(item instanceof SimpleDashboardItem) {
+      DashboardClickDispatcher dispatcher = ((SimpleDashboardItem) item).getClickDispatcher();
+      return (dispatcher == null) || !dispatcher.isBusy(item);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the given {@code convertView} if it is a Button (or a derivative of Button), or
+   * inflates a new Button otherwise.
+   *
+   * @param convertView The view to be reused, if possible. May be {@code null}.
+   * @param parent The parent the view will be attached to.
+   *
+   * @return The Button to be bound.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  protected Button obtainButton(View convertView, ViewGroup parent) {
+    if((convertView == null) || ! (convertView instanceof Button)) {
+      return (Button) inflater.inflate(R.layout.dashboard_item, parent, false);
+    }
+    return (Button) convertView;
+  }
+
   /**
    * Returns the list of items in this adapter.
    *
@@ -169,4 +236,230 @@ public class DashboardAdapter <T extends DashboardItem> extends BaseAdapter {
   public List<T> getList() {
     return items;
   }
+
+  /**
+   * Returns the {@link LayoutInflater} used for creating new views.
+   *
+   * @return the inflater
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  protected LayoutInflater getInflater() {
+    return inflater;
+  }
+
+  /**
+   * Returns the {@link OnClickListener} used for items that don't have their own
+   * {@link DashboardItem.OnClickListener}.
+   *
+   * @return the listener
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  protected OnClickListener getOnClickListener() {
+    return onClickListener;
+  }
+
+  /**
+   * Returns the position of the item with the given ID.
+   * <p/>
+   * The first call builds an index of all IDs, which is kept up-to-date by the fine-grained
+   * notifications ({@link #notifyItemInserted(int)} etc.), and dropped by
+   * {@link #notifyDataSetChanged()}. Apart from that, lookups take constant time. Unlike view
+   * IDs, the item IDs are not truncated to {@code int}, so they can't collide.
+   *
+   * @param id The ID of the item.
+   *
+   * @return The position of the item, or {@code -1} if there is no item with that ID.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public int getPositionForItemId(long id) {
+    if(idIndex == null) {
+      int count = getCount();
+      DashboardIdIndex index = new DashboardIdIndex(count);
+      for(int i = 0; i < count; i++) {
+        index.append(getItemId(i));
+      }
+      idIndex = index;
+    }
+    return idIndex.get(id);
+  }
+
+  @Override
+  public void notifyDataSetChanged() {
+    idIndex = null;
+    super.notifyDataSetChanged();
+  }
+
+  @Override
+  public void notifyDataSetInvalidated() {
+    idIndex = null;
+    super.notifyDataSetInvalidated();
+  }
+
+  @Override
+  public void registerDataSetObserver(DataSetObserver observer) {
+    super.registerDataSetObserver(observer);
+    if(observer instanceof DashboardDataSetObserver) {
+      synchronized(dashboardObservers) {
+        dashboardObservers.add((DashboardDataSetObserver) observer);
+      }
+    }
+  }
+
+  @Override
+  public void unregisterDataSetObserver(DataSetObserver observer) {
+    super.unregisterDataSetObserver(observer);
+    if(observer instanceof DashboardDataSetObserver) {
+      synchronized(dashboardObservers) {
+        dashboardObservers.remove(observer);
+      }
+    }
+  }
+
+  /**
+   * Notifies the attached observers that an item has been inserted at the given position.
+   *
+   * @param position The position of the inserted item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void notifyItemInserted(int position) {
+    if((idIndex != null) && (position <= idIndex.size())) {
+      idIndex.insert(position, getItemId(position));
+    } else {
+      idIndex = null;
+    }
+    synchronized(dashboardObservers) {
+      for(int i = dashboardObservers.size() - 1; i >= 0; i--) {
+        dashboardObservers.get(i).onItemInserted(position);
+      }
+    }
+  }
+
+  /**
+   * Notifies the attached observers that the item at the given position has been removed.
+   *
+   * @param position The former position of the removed item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void notifyItemRemoved(int position) {
+    if((idIndex != null) && (position < idIndex.size())) {
+      idIndex.remove(position);
+    } else {
+      idIndex = null;
+    }
+    synchronized(dashboardObservers) {
+      for(int i = dashboardObservers.size() - 1; i >= 0; i--) {
+        dashboardObservers.get(i).onItemRemoved(position);
+      }
+    }
+  }
+
+  /**
+   * Notifies the attached observers that an item has been moved from one position to another.
+   * The semantics are the same as removing the item at {@code fromPosition} and inserting it
+   * again at {@code toPosition}.
+   *
+   * @param fromPosition The former position of the item.
+   * @param toPosition The new position of the item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void notifyItemMoved(int fromPosition, int toPosition) {
+    if((idIndex != null) && (fromPosition < idIndex.size()) && (toPosition < idIndex.size())) {
+      idIndex.move(fromPosition, toPosition);
+    } else {
+      idIndex = null;
+    }
+    synchronized(dashboardObservers) {
+      for(int i = dashboardObservers.size() - 1; i >= 0; i--) {
+        dashboardObservers.get(i).onItemMoved(fromPosition, toPosition);
+      }
+    }
+  }
+
+  /**
+   * Checks whether {@link #moveItem(int, int)} is supported. Adapters presenting a read-only view
+   * of their items, or ordering them by themselves, override this to return {@code false}.
+   *
+   * @return {@code true} if items can be moved, which is the default.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public boolean canMoveItems() {
+    return true;
+  }
+
+  /**
+   * Moves the item at {@code fromPosition} to {@code toPosition} in the list of items, and notifies
+   * the attached observers using {@link #notifyItemMoved(int, int)}. This is used by the
+   * {@link DashboardLayout} when the user drops an item dragged to a new position.
+   * <p/>
+   * Adapters whose list of items can't be modified report so through {@link #canMoveItems()}, and
+   * the {@code DashboardLayout} doesn't pick up any of their items for dragging.
+   *
+   * @param fromPosition The current position of the item.
+   * @param toPosition The new position of the item.
+   *
+   * @throws UnsupportedOperationException If the adapter can't move items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void moveItem(int fromPosition, int toPosition) {
+    if(!canMoveItems()) {
+      throw new UnsupportedOperationException("The items of this adapter can't be moved");
+    }
+    if(fromPosition == toPosition) {
+      return;
+    }
+    items.add(toPosition, items.remove(fromPosition));
+    notifyItemMoved(fromPosition, toPosition);
+  }
+
+  /**
+   * Notifies the attached observers that the data of the item at the given position has changed.
+   *
+   * @param position The position of the changed item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void notifyItemChanged(int position) {
+    notifyItemRangeChanged(position, 1);
+  }
+
+  /**
+   * Notifies the attached observers that the data of the items in the given range has changed.
+   *
+   * @param positionStart The position of the first changed item.
+   * @param itemCount The number of changed items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void notifyItemRangeChanged(int positionStart, int itemCount) {
+    if((idIndex != null) && ((positionStart + itemCount) <= idIndex.size())) {
+      for(int i = positionStart; i < (positionStart + itemCount); i++) {
+        idIndex.set(i, getItemId(i));
+      }
+    } else {
+      idIndex = null;
+    }
+    synchronized(dashboardObservers) {
+      for(int i = dashboardObservers.size() - 1; i >= 0; i--) {
+        dashboardObservers.get(i).onItemRangeChanged(positionStart, itemCount);
+      }
+    }
+  }
 }
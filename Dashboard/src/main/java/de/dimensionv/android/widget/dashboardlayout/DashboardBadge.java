@@ -0,0 +1,129 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Live value shown as a badge on a single item of a DashboardLayout, writable
+// from any thread.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Live value shown as a badge on top of a single item of a {@link DashboardLayout}, e.g. the
+ * number of unread messages.</p>
+ * <p>Badges are obtained from the layout using {@link DashboardLayout#getBadge(long)}. Their value
+ * can be written from any thread without locking, as often as needed: the layout picks up the
+ * latest value at most once per frame, and only redraws the cell of the item, without measuring or
+ * laying out anything. Intermediate values written within the same frame are never drawn.</p>
+ * <p>A value of {@code 0} hides the badge.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public final class DashboardBadge {
+
+  private final DashboardLayout host;
+  private final AtomicLong value = new AtomicLong();
+
+  // only accessed on the main thread
+  long shownValue = 0;
+  String shownText = null;
+  float shownWidth = 0;
+
+  DashboardBadge(DashboardLayout host) {
+    this.host = host;
+  }
+
+  /**
+   * Sets the value of the badge. May be called from any thread.
+   *
+   * @param newValue The new value, or {@code 0} to hide the badge.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setValue(long newValue) {
+    if(value.getAndSet(newValue) != newValue) {
+      host.onBadgeChanged();
+    }
+  }
+
+  /**
+   * Adds the given delta to the value of the badge. May be called from any thread.
+   *
+   * @param delta The delta, may be negative.
+   *
+   * @return The new value.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long add(long delta) {
+    long newValue = value.addAndGet(delta);
+    if(delta != 0) {
+      host.onBadgeChanged();
+    }
+    return newValue;
+  }
+
+  /**
+   * Returns the latest value of the badge, which may not be drawn yet. May be called from any
+   * thread.
+   *
+   * @return The value.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getValue() {
+    return value.get();
+  }
+
+  /**
+   * Takes over the latest value for drawing. Only called on the main thread, once per frame.
+   *
+   * @return {@code true} if the value to be drawn changed, {@code false} otherwise.
+   */
+  boolean update() {
+    long newValue = value.get();
+    if(newValue == shownValue) {
+      return false;
+    }
+    shownValue = newValue;
+    shownText = null;
+    return true;
+  }
+}
@@ -0,0 +1,366 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Dispatches clicks on DashboardItems to their listeners on a background
+// executor, coalescing or debouncing repeated taps.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewParent;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Dispatches clicks on {@link DashboardItem}s to their {@link DashboardItem.OnClickListener}s
+ * on a background {@link Executor}, instead of calling them synchronously on the UI thread.</p>
+ * <p>Hence, the latency of the UI does not depend on what the listeners do, e.g. querying a
+ * database before navigating somewhere. Listeners implementing {@link AsyncOnClickListener} can
+ * deliver a result, which is handed back to them on the main thread.</p>
+ * <p>Rapid repeated taps on the same item are either coalesced ({@link #MODE_COALESCE}: taps on an
+ * item whose listener is still running, or which is busy, are dropped) or debounced
+ * ({@link #MODE_DEBOUNCE}: the listener runs once, after the taps stopped for the debounce
+ * interval).</p>
+ * <p>Listeners can mark an item as busy using {@link #setBusy(DashboardItem, boolean)}, from any
+ * thread. A busy item does not accept any clicks, and its view is disabled until the busy state
+ * is cleared. The view is looked up by the item's ID in the {@link DashboardLayout}s the
+ * dispatcher knows about, at the time the busy state changes, so recycled views are never
+ * affected. Layouts are known once an item in them has been clicked, or after
+ * {@link #attachLayout(DashboardLayout)}. The {@link DashboardAdapter} keeps the views of busy
+ * items disabled when it rebinds them. If a listener fails with an exception, the exception is
+ * logged, and the busy state of its item is cleared, so the item accepts clicks again.</p>
+ * <p>The dispatcher is attached to items using
+ * {@link SimpleDashboardItem#setClickDispatcher(DashboardClickDispatcher)}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardClickDispatcher {
+
+  /**
+   * Taps on an item whose listener is still running, or which is busy, are dropped.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int MODE_COALESCE = 0;
+
+  /**
+   * The listener runs once, after the taps on an item stopped for the debounce interval.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int MODE_DEBOUNCE = 1;
+
+  /**
+   * Default debounce interval in milliseconds.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final long DEFAULT_DEBOUNCE_INTERVAL = 300;
+
+  private static final String LOG_TAG = "DashboardClickDispatcher";
+
+  /**
+   * Extension of the {@link DashboardItem.OnClickListener} for listeners that produce a result,
+   * which has to be processed on the main thread, e.g. for navigating to another screen. The
+   * inherited {@code onClick(DashboardItem)} is only called if the item has no dispatcher
+   * attached.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface AsyncOnClickListener<R> extends DashboardItem.OnClickListener {
+    /**
+     * Called on the dispatcher's executor when the item has been clicked.
+     *
+     * @param item The clicked item.
+     *
+     * @return The result to be handed to {@link #onClickResult(DashboardItem, Object)}.
+     */
+    public R onClickInBackground(DashboardItem item);
+
+    /**
+     * Called on the main thread with the result of
+     * {@link #onClickInBackground(DashboardItem)}.
+     *
+     * @param item The clicked item.
+     * @param result The result.
+     */
+    public void onClickResult(DashboardItem item, R result);
+  }
+
+  private final Executor executor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final int mode;
+  private long debounceInterval = DEFAULT_DEBOUNCE_INTERVAL;
+
+  // all of the following are only accessed on the main thread
+  private final HashSet<Long> running = new HashSet<Long>();
+  private final HashSet<Long> busy = new HashSet<Long>();
+  private final HashMap<Long, Runnable> debounced = new HashMap<Long, Runnable>();
+  private final ArrayList<WeakReference<DashboardLayout>> layouts =
+      new ArrayList<WeakReference<DashboardLayout>>();
+
+  /**
+   * Creates a new {@code DashboardClickDispatcher} coalescing repeated taps.
+   *
+   * @param executor The executor the listeners are run on.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardClickDispatcher(Executor executor) {
+    this(executor, MODE_COALESCE);
+  }
+
+  /**
+   * Creates a new {@code DashboardClickDispatcher}.
+   *
+   * @param executor The executor the listeners are run on.
+   * @param mode Either {@link #MODE_COALESCE} or {@link #MODE_DEBOUNCE}.
+   *
+   * @throws IllegalArgumentException If the mode is invalid.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardClickDispatcher(Executor executor, int mode) {
+    if((mode != MODE_COALESCE) && (mode != MODE_DEBOUNCE)) {
+      throw new IllegalArgumentException("Invalid mode " + mode);
+    }
+    this.executor = executor;
+    this.mode = mode;
+  }
+
+  /**
+   * Sets the interval after the last tap on an item, after which its listener runs in
+   * {@link #MODE_DEBOUNCE}.
+   *
+   * @param debounceInterval The interval in milliseconds.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setDebounceInterval(long debounceInterval) {
+    this.debounceInterval = Math.max(0, debounceInterval);
+  }
+
+  /**
+   * Makes the given layout known to this dispatcher, so the views of busy items in it are
+   * disabled. Layouts are also attached implicitly when an item in them is clicked. Must be called
+   * on the main thread.
+   *
+   * @param layout The layout showing items of this dispatcher.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void attachLayout(DashboardLayout layout) {
+    for(int i = layouts.size() - 1; i >= 0; i--) {
+      DashboardLayout known = layouts.get(i).get();
+      if(known == layout) {
+        return;
+      }
+      if(known == null) {
+        layouts.remove(i);
+      }
+    }
+    layouts.add(new WeakReference<DashboardLayout>(layout));
+  }
+
+  /**
+   * Dispatches a click on the given item. Must be called on the main thread, which is where
+   * {@code View.OnClickListener}s are called anyway.
+   *
+   * @param item The clicked item.
+   * @param view The clicked view. May be {@code null}.
+   * @param listener The listener to be run.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void dispatch(final DashboardItem item, View view, final DashboardItem.OnClickListener listener) {
+    if(listener == null) {
+      return;
+    }
+    final Long key = Long.valueOf(item.getID());
+    if(view != null) {
+      ViewParent parent = view.getParent();
+      if(parent instanceof DashboardLayout) {
+        attachLayout((DashboardLayout) parent);
+      }
+    }
+    if(busy.contains(key)) {
+      return;
+    }
+
+    if(mode == MODE_DEBOUNCE) {
+      Runnable pending = debounced.remove(key);
+      if(pending != null) {
+        mainHandler.removeCallbacks(pending);
+      }
+      pending = new Runnable() {
+        @Override
+        public void run() {
+          debounced.remove(key);
+          if(!busy.contains(key) && !running.contains(key)) {
+            execute(key, item, listener);
+          }
+        }
+      };
+      debounced.put(key, pending);
+      mainHandler.postDelayed(pending, debounceInterval);
+    } else if(!running.contains(key)) {
+      execute(key, item, listener);
+    }
+  }
+
+  /**
+   * Sets or clears the busy state of the given item. May be called on any thread. While an item
+   * is busy, clicks on it are dropped and its view is disabled.
+   *
+   * @param item The item.
+   * @param isBusy {@code true} to mark the item as busy, {@code false} to clear the busy state.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setBusy(final DashboardItem item, final boolean isBusy) {
+    final Long key = Long.valueOf(item.getID());
+    runOnMainThread(new Runnable() {
+      @Override
+      public void run() {
+        if(isBusy) {
+          busy.add(key);
+        } else {
+          busy.remove(key);
+        }
+        for(int i = layouts.size() - 1; i >= 0; i--) {
+          DashboardLayout layout = layouts.get(i).get();
+          if(layout == null) {
+            layouts.remove(i);
+            continue;
+          }
+          View view = layout.findViewForItemId(key.longValue());
+          if(view != null) {
+            view.setEnabled(!isBusy && item.isEnabled());
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Checks whether the given item is busy. Must be called on the main thread.
+   *
+   * @param item The item.
+   *
+   * @return {@code true} if the item is busy, {@code false} otherwise.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isBusy(DashboardItem item) {
+    return busy.contains(Long.valueOf(item.getID()));
+  }
+
+  private void execute(final Long key, final DashboardItem item,
+                       final DashboardItem.OnClickListener listener) {
+    running.add(key);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Runnable completion = null;
+        boolean failed = false;
+        try {
+          completion = runListener(item, listener);
+        } catch(RuntimeException e) {
+          failed = true;
+          Log.e(LOG_TAG, "Click listener of item " + key + " failed", e);
+        } finally {
+          final Runnable onMainThread = completion;
+          final boolean clearBusy = failed;
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              running.remove(key);
+              if(clearBusy) {
+                setBusy(item, false);
+              }
+              if(onMainThread != null) {
+                onMainThread.run();
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private Runnable runListener(final DashboardItem item, DashboardItem.OnClickListener listener) {
+    if(listener instanceof AsyncOnClickListener) {
+      final AsyncOnClickListener<Object> asyncListener = (AsyncOnClickListener<Object>) listener;
+      final Object result = asyncListener.onClickInBackground(item);
+      return new Runnable() {
+        @Override
+        public void run() {
+          asyncListener.onClickResult(item, result);
+        }
+      };
+    }
+    listener.onClick(item);
+    return null;
+  }
+
+  private void runOnMainThread(Runnable runnable) {
+    if(Looper.myLooper() == Looper.getMainLooper()) {
+      runnable.run();
+    } else {
+      mainHandler.post(runnable);
+    }
+  }
+}
@@ -48,9 +48,13 @@ import android.database.DataSetObserver;
  * <p/>
  * It receives callbacks when a data set has been changed, or made invalid in the DashboardAdapter.
  * It is a direct extension of the <code>android.database.DataSetObserver</code> class.
+ * <p/>
+ * In addition to the callbacks inherited from the <code>DataSetObserver</code>, it receives the
+ * fine-grained notifications of the {@link DashboardAdapter}, which allow the DashboardLayout to
+ * update only the affected children.
  *
  * @author Volkmar Seifert
- * @version 1.0
+ * @version 1.1
  * @since API 1.0.0
  */
 public class DashboardDataSetObserver extends DataSetObserver {
@@ -77,7 +81,7 @@ public class DashboardDataSetObserver extends DataSetObserver {
    */
   @Override
   public void onChanged() {
-    layout.removeAllViews();
+    layout.recycleAllViews();
     layout.populateFromAdapter();
   }
 
@@ -89,6 +93,56 @@ public class DashboardDataSetObserver extends DataSetObserver {
    */
   @Override
   public void onInvalidated() {
-    layout.removeAllViews();
+    layout.recycleAllViews();
+  }
+
+  /**
+   * This method is called when a single item has been inserted.
+   *
+   * @param position The position of the inserted item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void onItemInserted(int position) {
+    layout.onItemInserted(position);
+  }
+
+  /**
+   * This method is called when a single item has been removed.
+   *
+   * @param position The former position of the removed item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void onItemRemoved(int position) {
+    layout.onItemRemoved(position);
+  }
+
+  /**
+   * This method is called when a single item has been moved.
+   *
+   * @param fromPosition The former position of the item.
+   * @param toPosition The new position of the item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void onItemMoved(int fromPosition, int toPosition) {
+    layout.onItemMoved(fromPosition, toPosition);
+  }
+
+  /**
+   * This method is called when the data of a range of items has changed.
+   *
+   * @param positionStart The position of the first changed item.
+   * @param itemCount The number of changed items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void onItemRangeChanged(int positionStart, int itemCount) {
+    layout.onItemRangeChanged(positionStart, itemCount);
   }
 }
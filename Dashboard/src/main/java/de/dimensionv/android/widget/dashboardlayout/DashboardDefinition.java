@@ -0,0 +1,313 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Read-only dashboard definition, memory-mapped from a binary asset compiled
+// at build-time.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.SparseIntArray;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * <p>Read-only dashboard definition, compiled at build-time into a binary asset.</p>
+ * <p>Definitions are written as JSON files in {@code src/main/dashboards}, and compiled into the
+ * asset {@code dashboards/<name>.dbd} by the task {@code compileDashboardDefinitions} of the
+ * Gradle-script {@code dashboardDefinitions.gradle}, which also describes the binary format.</p>
+ * <p>{@link #open(Context, String)} memory-maps the asset, so loading a definition neither parses
+ * anything nor copies the items into the heap. The items are read straight from the mapped buffer
+ * when they are accessed, labels are decoded on first access, and icons are resolved by name only
+ * when they are needed for the first time. Use a {@link DefinitionDashboardAdapter} to display a
+ * definition in a {@link DashboardLayout}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardDefinition {
+
+  /**
+   * The magic number every compiled definition starts with ("DBDF").
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int MAGIC = 0x44424446;
+
+  /**
+   * The version of the binary format supported by this class.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 28;
+  private static final int RECORD_SIZE = 24;
+  private static final int ICON_SIZE = 8;
+  private static final int FLAG_ENABLED = 1;
+  private static final int UNRESOLVED = -1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+  private final int itemCount;
+  private final int iconCount;
+  private final int recordsOffset;
+  private final int iconsOffset;
+  private final int stringsOffset;
+
+  private final String[] labels;
+  private final SparseIntArray iconIds = new SparseIntArray();
+
+  private DashboardDefinition(ByteBuffer buffer) {
+    this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+    int limit = buffer.limit();
+    if((limit < HEADER_SIZE) || (buffer.getInt(0) != MAGIC)) {
+      throw new IllegalArgumentException("Not a compiled dashboard definition");
+    }
+    int version = buffer.getShort(4);
+    if(version != VERSION) {
+      throw new IllegalArgumentException("Unsupported dashboard definition version " + version);
+    }
+    itemCount = buffer.getInt(8);
+    iconCount = buffer.getInt(12);
+    recordsOffset = buffer.getInt(16);
+    iconsOffset = buffer.getInt(20);
+    stringsOffset = buffer.getInt(24);
+    if((itemCount < 0) || (iconCount < 0)
+        || ((recordsOffset + ((long) itemCount * RECORD_SIZE)) > iconsOffset)
+        || ((iconsOffset + ((long) iconCount * ICON_SIZE)) > stringsOffset)
+        || (stringsOffset > limit)) {
+      throw new IllegalArgumentException("Corrupt dashboard definition");
+    }
+    labels = new String[itemCount];
+  }
+
+  /**
+   * <p>Opens the compiled definition with the given asset name, e.g.
+   * {@code "dashboards/main.dbd"}.</p>
+   * <p>The asset is memory-mapped if it is stored uncompressed, which
+   * {@code dashboardDefinitions.gradle} takes care of. If it is compressed nevertheless, it is
+   * read into the heap instead.</p>
+   *
+   * @param context The context providing the assets and resources.
+   * @param assetName The name of the asset.
+   *
+   * @return The definition.
+   *
+   * @throws IOException If the asset could not be read.
+   * @throws IllegalArgumentException If the asset is not a valid compiled definition.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static DashboardDefinition open(Context context, String assetName) throws IOException {
+    ByteBuffer buffer;
+    try {
+      buffer = map(context.getAssets().openFd(assetName));
+    } catch(FileNotFoundException e) {
+      // openFd() fails for compressed assets
+      buffer = read(context.getAssets().open(assetName));
+    }
+    return new DashboardDefinition(buffer);
+  }
+
+  /**
+   * Creates a definition from a buffer containing a compiled definition, starting at position
+   * {@code 0}.
+   *
+   * @param buffer The buffer.
+   *
+   * @return The definition.
+   *
+   * @throws IllegalArgumentException If the buffer does not contain a valid compiled definition.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static DashboardDefinition fromBuffer(ByteBuffer buffer) {
+    return new DashboardDefinition(buffer.duplicate());
+  }
+
+  /**
+   * Returns the number of items of this definition.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getCount() {
+    return itemCount;
+  }
+
+  /**
+   * Returns the ID of the item at the given position.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getID(int position) {
+    return buffer.getLong(recordOffset(position));
+  }
+
+  /**
+   * Returns the text of the item at the given position. The text is decoded on first access.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public String getText(int position) {
+    String label = labels[checkPosition(position)];
+    if(label == null) {
+      int offset = recordOffset(position);
+      label = readString(buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+      labels[position] = label;
+    }
+    return label;
+  }
+
+  /**
+   * Returns the initial state of the item at the given position.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isEnabled(int position) {
+    return (buffer.getInt(recordOffset(position) + 20) & FLAG_ENABLED) != 0;
+  }
+
+  /**
+   * Returns the resource name of the icon of the item at the given position, as written in the
+   * source definition.
+   *
+   * @return The resource name, or {@code null} if the item has no icon.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public String getIconName(int position) {
+    int iconIndex = buffer.getInt(recordOffset(position) + 16);
+    if((iconIndex < 0) || (iconIndex >= iconCount)) {
+      return null;
+    }
+    int offset = iconsOffset + (iconIndex * ICON_SIZE);
+    return readString(buffer.getInt(offset), buffer.getInt(offset + 4));
+  }
+
+  /**
+   * Returns the icon of the item at the given position. The resource name of the icon is resolved
+   * only once per icon, using {@link Resources#getIdentifier(String, String, String)}.
+   *
+   * @param position The position of the item.
+   * @param context The context providing the resources.
+   *
+   * @return The icon, or {@code null} if the item has no icon, or if the icon doesn't exist.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Drawable getIconDrawable(int position, Context context) {
+    int iconIndex = buffer.getInt(recordOffset(position) + 16);
+    if((iconIndex < 0) || (iconIndex >= iconCount)) {
+      return null;
+    }
+    int resId = iconIds.get(iconIndex, UNRESOLVED);
+    if(resId == UNRESOLVED) {
+      resId = context.getResources().getIdentifier(getIconName(position), null,
+          context.getPackageName());
+      iconIds.put(iconIndex, resId);
+    }
+    return (resId != 0) ? context.getResources().getDrawable(resId) : null;
+  }
+
+  private int checkPosition(int position) {
+    if((position < 0) || (position >= itemCount)) {
+      throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + itemCount);
+    }
+    return position;
+  }
+
+  private int recordOffset(int position) {
+    return recordsOffset + (checkPosition(position) * RECORD_SIZE);
+  }
+
+  private String readString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer strings = buffer.duplicate();
+    strings.position(stringsOffset + offset);
+    strings.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static ByteBuffer map(AssetFileDescriptor descriptor) throws IOException {
+    FileInputStream stream = descriptor.createInputStream();
+    try {
+      FileChannel channel = stream.getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(),
+          descriptor.getLength());
+    } finally {
+      // the mapping stays valid after the channel has been closed
+      stream.close();
+      descriptor.close();
+    }
+  }
+
+  private static ByteBuffer read(InputStream stream) throws IOException {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] chunk = new byte[4096];
+      int count;
+      while((count = stream.read(chunk)) != -1) {
+        bytes.write(chunk, 0, count);
+      }
+      return ByteBuffer.wrap(bytes.toByteArray());
+    } finally {
+      stream.close();
+    }
+  }
+}
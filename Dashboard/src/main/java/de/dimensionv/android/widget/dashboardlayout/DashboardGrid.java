@@ -0,0 +1,289 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Immutable result of the grid computation that arranges the items of the
+// DashboardLayout in rows and columns.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+/**
+ * <p>Immutable result of the grid computation used by the {@link DashboardLayout}.</p>
+ * <p>Given the available real-estate, the size of a single cell and the number of cells to be
+ * arranged, the {@link #solve(int, int, int, int, int, int, int)} method determines the number of
+ * columns and rows that optimize for even horizontal and vertical whitespace between the items,
+ * while respecting the desired number of columns and/or rows, if possible.</p>
+ * <p>Keeping the computation separate from the {@code View}-hierarchy allows it to be reused
+ * wherever the grid needs to be known without actually laying out any children.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+final class DashboardGrid {
+
+  private static final int UNEVEN_GRID_PENALTY_MULTIPLIER = 10;
+
+  /**
+   * The number of columns of the grid.
+   */
+  final int cols;
+
+  /**
+   * The number of rows of the grid.
+   */
+  final int rows;
+
+  /**
+   * The horizontal space between two cells. Never negative.
+   */
+  final int hSpace;
+
+  /**
+   * The vertical space between two cells. Never negative.
+   */
+  final int vSpace;
+
+  /**
+   * The width of a single cell, including the share of surplus space.
+   */
+  final int cellWidth;
+
+  /**
+   * The height of a single cell, including the share of surplus space.
+   */
+  final int cellHeight;
+
+  private DashboardGrid(int cols, int rows, int hSpace, int vSpace, int cellWidth, int cellHeight) {
+    this.cols = cols;
+    this.rows = rows;
+    this.hSpace = hSpace;
+    this.vSpace = vSpace;
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+  }
+
+  /**
+   * Calculates what number of rows and columns will optimize for even horizontal and vertical
+   * whitespace between items. Starts with a 1 x N grid, then tries 2 x N, and so on.
+   *
+   * @param width The available width.
+   * @param height The available height.
+   * @param childWidth The (maximum) width of a single item.
+   * @param childHeight The (maximum) height of a single item.
+   * @param count The number of items to be arranged. Must be greater than zero.
+   * @param desiredCols The desired number of columns, or {@code 0} for no preference.
+   * @param desiredRows The desired number of rows, or {@code 0} for no preference.
+   *
+   * @return The best-fit grid for the given parameters.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static DashboardGrid solve(int width, int height, int childWidth, int childHeight, int count,
+                             int desiredCols, int desiredRows) {
+    int bestSpaceDifference = Integer.MAX_VALUE;
+    int spaceDifference = 0;
+    int[] spaceDiff = new int[count];
+    boolean haveSquare = false;
+    int root = 0;
+
+    // Horizontal and vertical space between items
+    int hSpace = 0;
+    int vSpace = 0;
+
+    int cols = 1;
+    int rows;
+
+    for(int i = 0; i < count; i++) {
+      cols = i + 1;
+      rows = computeRows(cols, count);
+      if(cols == rows) {
+        haveSquare = ((desiredCols == desiredRows) && (count == (cols * rows)));
+        root = cols;
+      }
+
+      hSpace = ((width - (childWidth * cols)) / (cols + 1));
+      vSpace = ((height - (childHeight * rows)) / (rows + 1));
+
+      spaceDifference = Math.abs(vSpace - hSpace);
+      if((rows * cols) != count) {
+        spaceDifference *= UNEVEN_GRID_PENALTY_MULTIPLIER;
+      }
+      spaceDiff[i] = spaceDifference;
+    }
+
+    rows = 0;
+
+    // sort values and store column
+    for(int i = 0; i < count; i++) {
+      if(spaceDiff[i] < bestSpaceDifference) {
+        // Found a better whitespace squareness/ratio
+        bestSpaceDifference = spaceDiff[i];
+        cols = i + 1;
+      }
+      int currentCols = i + 1;
+      if(currentCols == desiredCols) {
+        rows = computeRows(currentCols, count);
+        if((desiredRows == 0) || (rows == desiredRows)) {
+          cols = currentCols;
+          break;
+        }
+      } else if((desiredCols == 0) && (desiredRows > 0)) {
+        rows = computeRows(cols, count);
+        if(rows == desiredRows) {
+          cols = currentCols;
+          break;
+        }
+      }
+    }
+
+    if(haveSquare && ((cols > 1) && (cols < count))) {
+      // prefer squared arrangement unless everything can be placed into a
+      // single row or column
+      rows = cols = root;
+    } else if(rows == 0) {
+      rows = computeRows(cols, count);
+    }
+
+    return forColsAndRows(cols, rows, width, height, childWidth, childHeight);
+  }
+
+  /**
+   * Computes the spacing and cell size for a fixed number of columns.
+   *
+   * @param cols The number of columns.
+   * @param width The available width.
+   * @param height The available height.
+   * @param childWidth The (maximum) width of a single item.
+   * @param childHeight The (maximum) height of a single item.
+   * @param count The number of items to be arranged. Must be greater than zero.
+   *
+   * @return The grid for the given number of columns.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static DashboardGrid forCols(int cols, int width, int height, int childWidth, int childHeight,
+                               int count) {
+    return forColsAndRows(cols, computeRows(cols, count), width, height, childWidth, childHeight);
+  }
+
+  /**
+   * Computes the spacing and cell size for a fixed number of columns and rows.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static DashboardGrid forColsAndRows(int cols, int rows, int width, int height, int childWidth,
+                                      int childHeight) {
+    int hSpace = ((width - (childWidth * cols)) / (cols + 1));
+    int vSpace = ((height - (childHeight * rows)) / (rows + 1));
+
+    // If we chose a layout that has negative horizontal or vertical space,
+    // force it to zero.
+    hSpace = Math.max(0, hSpace);
+    vSpace = Math.max(0, vSpace);
+
+    int cellWidth = (width - (hSpace * (cols + 1))) / cols;
+    int cellHeight = (rows > 0) ? ((height - (vSpace * (rows + 1))) / rows) : 0;
+
+    return new DashboardGrid(cols, rows, hSpace, vSpace, cellWidth, cellHeight);
+  }
+
+  /**
+   * Compute the number of rows for a given number of columns and a given number of visible
+   * objects.
+   *
+   * @param cols Number of columns per row
+   * @param count Number of visible objects
+   *
+   * @return The number of rows.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static int computeRows(int cols, int count) {
+    return ((count - 1) / cols) + 1;
+  }
+
+  /**
+   * Computes how many cells of the given size fit into the available real-estate without
+   * overlapping, respecting the desired number of columns and/or rows as upper limits.
+   *
+   * @param width The available width.
+   * @param height The available height.
+   * @param childWidth The (maximum) width of a single item.
+   * @param childHeight The (maximum) height of a single item.
+   * @param desiredCols The desired number of columns, or {@code 0} for no preference.
+   * @param desiredRows The desired number of rows, or {@code 0} for no preference.
+   *
+   * @return The number of cells, at least {@code 1}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static int pageCapacity(int width, int height, int childWidth, int childHeight, int desiredCols,
+                          int desiredRows) {
+    int cols = Math.max(1, width / Math.max(1, childWidth));
+    int rows = Math.max(1, height / Math.max(1, childHeight));
+    if(desiredCols > 0) {
+      cols = Math.min(cols, desiredCols);
+    }
+    if(desiredRows > 0) {
+      rows = Math.min(rows, desiredRows);
+    }
+    return cols * rows;
+  }
+
+  /**
+   * Returns the left edge of the cell in the given column.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  int getCellLeft(int col) {
+    return (hSpace * (col + 1)) + (cellWidth * col);
+  }
+
+  /**
+   * Returns the top edge of the cell in the given row.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  int getCellTop(int row) {
+    return (vSpace * (row + 1)) + (cellHeight * row);
+  }
+}
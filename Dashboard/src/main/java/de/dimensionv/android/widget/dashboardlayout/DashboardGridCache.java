@@ -0,0 +1,157 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Small LRU-cache of grid solutions, keyed by the full set of grid
+// parameters.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Small LRU-cache of {@link DashboardGrid} solutions.</p>
+ * <p>The grid search is repeated for every layout pass, although the parameters hardly ever
+ * change. Caching the solutions per set of parameters allows the {@link DashboardLayout} to switch
+ * between a few recurring viewport sizes, e.g. on rotation, without searching again, and to
+ * compute the solutions for such sizes in advance.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+final class DashboardGridCache {
+
+  private static final int MAX_ENTRIES = 8;
+
+  private final LinkedHashMap<Key, DashboardGrid> solutions =
+      new LinkedHashMap<Key, DashboardGrid>(MAX_ENTRIES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, DashboardGrid> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  /**
+   * Returns the cached solution for the given parameters, solving and caching it if necessary.
+   *
+   * @see DashboardGrid#solve(int, int, int, int, int, int, int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  DashboardGrid solve(int width, int height, int childWidth, int childHeight, int count,
+                      int desiredCols, int desiredRows) {
+    Key key = new Key(width, height, childWidth, childHeight, count, desiredCols, desiredRows);
+    DashboardGrid grid = solutions.get(key);
+    if(grid == null) {
+      grid = DashboardGrid.solve(width, height, childWidth, childHeight, count, desiredCols,
+          desiredRows);
+      solutions.put(key, grid);
+    }
+    return grid;
+  }
+
+  /**
+   * Checks whether the solution for the given parameters is cached, without affecting the order
+   * of eviction.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  boolean contains(int width, int height, int childWidth, int childHeight, int count,
+                   int desiredCols, int desiredRows) {
+    return solutions.containsKey(
+        new Key(width, height, childWidth, childHeight, count, desiredCols, desiredRows));
+  }
+
+  /**
+   * Discards all cached solutions.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  void clear() {
+    solutions.clear();
+  }
+
+  /**
+   * The full set of parameters of a grid solution.
+   */
+  private static final class Key {
+    private final int width;
+    private final int height;
+    private final int childWidth;
+    private final int childHeight;
+    private final int count;
+    private final int desiredCols;
+    private final int desiredRows;
+
+    Key(int width, int height, int childWidth, int childHeight, int count, int desiredCols,
+        int desiredRows) {
+      this.width = width;
+      this.height = height;
+      this.childWidth = childWidth;
+      this.childHeight = childHeight;
+      this.count = count;
+      this.desiredCols = desiredCols;
+      this.desiredRows = desiredRows;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return (width == other.width) && (height == other.height)
+          && (childWidth == other.childWidth) && (childHeight == other.childHeight)
+          && (count == other.count) && (desiredCols == other.desiredCols)
+          && (desiredRows == other.desiredRows);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = width;
+      result = (31 * result) + height;
+      result = (31 * result) + childWidth;
+      result = (31 * result) + childHeight;
+      result = (31 * result) + count;
+      result = (31 * result) + desiredCols;
+      result = (31 * result) + desiredRows;
+      return result;
+    }
+  }
+}
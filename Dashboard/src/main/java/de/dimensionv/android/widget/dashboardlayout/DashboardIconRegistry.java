@@ -0,0 +1,205 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Registry mapping small int handles to icons, so compact item stores don't
+// need to hold a Drawable reference per item.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.SparseIntArray;
+
+/**
+ * <p>Registry mapping small {@code int} handles to icons.</p>
+ * <p>Instead of holding a {@link Drawable} reference per item, compact item stores like the
+ * {@link CompactDashboardItemStore} only keep the handle of an icon, and resolve it through the
+ * registry when the item is bound. Icons registered by resource-ID are only loaded when they are
+ * requested for the first time, and registering the same resource-ID twice returns the same
+ * handle.</p>
+ * <p>The handle {@link #NO_ICON} is reserved for items without an icon.</p>
+ * <p>As a {@link DashboardMemoryConsumer}, the registry can be trimmed by a
+ * {@link DashboardMemoryManager}, usually in the tier {@link DashboardMemoryManager#TIER_ICONS}.
+ * Trimming only releases icons registered by resource-ID, which are loaded again when they are
+ * requested the next time.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardIconRegistry implements DashboardMemoryConsumer {
+
+  /**
+   * The handle representing "no icon".
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int NO_ICON = 0;
+
+  private final Resources resources;
+  private final SparseIntArray handlesByResource = new SparseIntArray();
+  private Drawable[] drawables = new Drawable[16];
+  private int[] resourceIds = new int[16];
+  private int size = 1;
+
+  /**
+   * Creates a new, empty {@code DashboardIconRegistry}.
+   *
+   * @param resources The resources used to load icons registered by resource-ID.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardIconRegistry(Resources resources) {
+    this.resources = resources;
+  }
+
+  /**
+   * Registers the given icon.
+   *
+   * @param icon The icon. May be {@code null}.
+   *
+   * @return The handle of the icon, or {@link #NO_ICON} if {@code icon} is {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int register(Drawable icon) {
+    if(icon == null) {
+      return NO_ICON;
+    }
+    int handle = allocate();
+    drawables[handle] = icon;
+    return handle;
+  }
+
+  /**
+   * Registers the icon with the given resource-ID. The icon is loaded lazily.
+   *
+   * @param resId The resource-ID of the icon, or {@code 0} for no icon.
+   *
+   * @return The handle of the icon, or {@link #NO_ICON} if {@code resId} is {@code 0}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int registerResource(int resId) {
+    if(resId == 0) {
+      return NO_ICON;
+    }
+    int handle = handlesByResource.get(resId, NO_ICON);
+    if(handle == NO_ICON) {
+      handle = allocate();
+      resourceIds[handle] = resId;
+      handlesByResource.put(resId, handle);
+    }
+    return handle;
+  }
+
+  /**
+   * Returns the icon for the given handle, loading it if necessary.
+   *
+   * @param handle The handle.
+   *
+   * @return The icon, or {@code null} for {@link #NO_ICON}.
+   *
+   * @throws IndexOutOfBoundsException If the handle was not issued by this registry.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Drawable get(int handle) {
+    if(handle == NO_ICON) {
+      return null;
+    }
+    if((handle < 0) || (handle >= size)) {
+      throw new IndexOutOfBoundsException("Invalid icon handle " + handle);
+    }
+    Drawable icon = drawables[handle];
+    if((icon == null) && (resourceIds[handle] != 0)) {
+      icon = resources.getDrawable(resourceIds[handle]);
+      drawables[handle] = icon;
+    }
+    return icon;
+  }
+
+  /**
+   * Returns the number of registered icons.
+   *
+   * @return The number of icons.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int size() {
+    return size - 1;
+  }
+
+  @Override
+  public long getMemorySize() {
+    long bytes = 0;
+    for(int i = 1; i < size; i++) {
+      if(drawables[i] != null) {
+        bytes += DashboardMemoryManager.estimateBytes(drawables[i]);
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public void trimMemoryTo(long bytes) {
+    long memorySize = getMemorySize();
+    for(int i = size - 1; (i > 0) && (memorySize > bytes); i--) {
+      if((drawables[i] != null) && (resourceIds[i] != 0)) {
+        memorySize -= DashboardMemoryManager.estimateBytes(drawables[i]);
+        drawables[i] = null;
+      }
+    }
+  }
+
+  private int allocate() {
+    if(size == drawables.length) {
+      int capacity = size * 2;
+      Drawable[] newDrawables = new Drawable[capacity];
+      System.arraycopy(drawables, 0, newDrawables, 0, size);
+      drawables = newDrawables;
+      int[] newResourceIds = new int[capacity];
+      System.arraycopy(resourceIds, 0, newResourceIds, 0, size);
+      resourceIds = newResourceIds;
+    }
+    return size++;
+  }
+}
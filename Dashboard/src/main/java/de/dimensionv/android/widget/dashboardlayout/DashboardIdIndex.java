@@ -0,0 +1,242 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Primitive, open-addressing index mapping item IDs to adapter positions.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.Arrays;
+
+/**
+ * <p>Index mapping item IDs to adapter positions, as maintained by the {@link DashboardAdapter}.</p>
+ * <p>The index keeps the IDs by position in a plain {@code long[]}, and the reverse mapping in an
+ * open-addressing hash table with primitive keys and values, so neither lookups nor updates box
+ * anything. Lookups take constant time. Inserts, removals and moves only update the entries whose
+ * positions actually shift.</p>
+ * <p>IDs are expected to be unique. If they aren't, a lookup returns one of the positions sharing
+ * the ID.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+final class DashboardIdIndex {
+
+  private static final int EMPTY = -1;
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] ids;
+  private int size = 0;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int tableSize = 0;
+
+  DashboardIdIndex(int expectedSize) {
+    ids = new long[Math.max(MIN_CAPACITY, expectedSize)];
+    allocateTable(tableCapacityFor(expectedSize));
+  }
+
+  /**
+   * Returns the position of the given ID.
+   *
+   * @return The position, or {@code -1} if the ID isn't indexed.
+   */
+  int get(long id) {
+    int i = slot(id);
+    while(values[i] != EMPTY) {
+      if(keys[i] == id) {
+        return values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  long idAt(int position) {
+    return ids[position];
+  }
+
+  void append(long id) {
+    ensureCapacity(size + 1);
+    ids[size] = id;
+    put(id, size);
+    size++;
+  }
+
+  void insert(int position, long id) {
+    ensureCapacity(size + 1);
+    System.arraycopy(ids, position, ids, position + 1, size - position);
+    ids[position] = id;
+    size++;
+    reindex(position + 1, size - 1);
+    put(id, position);
+  }
+
+  void remove(int position) {
+    long id = ids[position];
+    if(get(id) == position) {
+      delete(id);
+    }
+    System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+    size--;
+    reindex(position, size - 1);
+  }
+
+  void move(int fromPosition, int toPosition) {
+    long id = ids[fromPosition];
+    if(fromPosition < toPosition) {
+      System.arraycopy(ids, fromPosition + 1, ids, fromPosition, toPosition - fromPosition);
+    } else {
+      System.arraycopy(ids, toPosition, ids, toPosition + 1, fromPosition - toPosition);
+    }
+    ids[toPosition] = id;
+    reindex(Math.min(fromPosition, toPosition), Math.max(fromPosition, toPosition));
+  }
+
+  void set(int position, long id) {
+    long oldId = ids[position];
+    if(oldId == id) {
+      return;
+    }
+    if(get(oldId) == position) {
+      delete(oldId);
+    }
+    ids[position] = id;
+    put(id, position);
+  }
+
+  private void reindex(int first, int last) {
+    for(int i = first; i <= last; i++) {
+      put(ids[i], i);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if(capacity > ids.length) {
+      long[] newIds = new long[Math.max(capacity, ids.length * 2)];
+      System.arraycopy(ids, 0, newIds, 0, size);
+      ids = newIds;
+    }
+  }
+
+  private void put(long key, int value) {
+    if(((tableSize + 1) * 2) > keys.length) {
+      rehash(keys.length * 2);
+    }
+    int i = slot(key);
+    while(values[i] != EMPTY) {
+      if(keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    tableSize++;
+  }
+
+  /**
+   * Removes the given key, shifting the following entries of its probe sequence back, so lookups
+   * never need tombstones.
+   */
+  private void delete(long key) {
+    int i = slot(key);
+    while((values[i] != EMPTY) && (keys[i] != key)) {
+      i = (i + 1) & mask;
+    }
+    if(values[i] == EMPTY) {
+      return;
+    }
+    int j = i;
+    while(true) {
+      j = (j + 1) & mask;
+      if(values[j] == EMPTY) {
+        break;
+      }
+      int home = slot(keys[j]);
+      // entries whose home slot lies cyclically within (i, j] stay where they are
+      boolean stays = (i <= j) ? ((i < home) && (home <= j)) : ((i < home) || (home <= j));
+      if(!stays) {
+        keys[i] = keys[j];
+        values[i] = values[j];
+        i = j;
+      }
+    }
+    values[i] = EMPTY;
+    tableSize--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocateTable(capacity);
+    for(int i = 0; i < oldKeys.length; i++) {
+      if(oldValues[i] != EMPTY) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private void allocateTable(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, EMPTY);
+    mask = capacity - 1;
+    tableSize = 0;
+  }
+
+  private static int tableCapacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while(capacity < (expectedSize * 2)) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private int slot(long key) {
+    // finalizer of MurmurHash3, spreading sequential IDs across the table
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+}
@@ -0,0 +1,178 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Builds large numbers of ContainerDashboardItems from DashboardItemContent
+// objects in parallel.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Builds large numbers of {@link ContainerDashboardItem}s from {@link DashboardItemContent}
+ * objects in parallel.</p>
+ * <p>The content-objects are split into chunks, which are converted into items concurrently. The
+ * icons of the items are not resolved while building, but when they are requested for the first
+ * time (see {@link ContainerDashboardItem#ContainerDashboardItem(Object, boolean, boolean)}), so
+ * building only costs reading the ID and the text of each content-object. The resulting list keeps
+ * the order of the input, and can be handed to a {@link DashboardAdapter} directly.</p>
+ * <p>The content-objects are read from several threads at once, so their {@code getID()} and
+ * {@code getText()} methods must be safe to call from any thread.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public final class DashboardItemBuilder {
+
+  /**
+   * The smallest number of content-objects converted as a single chunk. Smaller inputs are
+   * converted on the calling thread.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int MIN_CHUNK_SIZE = 256;
+
+  private DashboardItemBuilder() {
+  }
+
+  /**
+   * Builds the items for the given content-objects, using a temporary thread pool with one thread
+   * per available processor.
+   *
+   * @param contents The content-objects.
+   * @param enabled The state of the new items.
+   *
+   * @return The items, in the order of the content-objects.
+   *
+   * @throws InterruptedException If the calling thread was interrupted while waiting.
+   *
+   * @see #build(Collection, boolean, ExecutorService)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static <T extends DashboardItemContent> List<ContainerDashboardItem<T>> build(
+      Collection<? extends T> contents, boolean enabled) throws InterruptedException {
+    if(contents.size() < (2 * MIN_CHUNK_SIZE)) {
+      return build(contents, enabled, null);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors());
+    try {
+      return build(contents, enabled, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Builds the items for the given content-objects, using the given executor.
+   *
+   * @param contents The content-objects.
+   * @param enabled The state of the new items.
+   * @param executor The executor converting the chunks, or {@code null} to convert everything on
+   *                 the calling thread.
+   *
+   * @return The items, in the order of the content-objects.
+   *
+   * @throws InterruptedException If the calling thread was interrupted while waiting.
+   * @throws RuntimeException Any exception thrown while converting a content-object, e.g. from
+   *                          one of its methods, is rethrown on the calling thread.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static <T extends DashboardItemContent> List<ContainerDashboardItem<T>> build(
+      Collection<? extends T> contents, final boolean enabled, ExecutorService executor)
+      throws InterruptedException {
+    final List<T> input = new ArrayList<T>(contents);
+    final int count = input.size();
+    int threads = Runtime.getRuntime().availableProcessors();
+    // a few chunks per thread, so a slow chunk doesn't leave the other threads idle
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, (count + (threads * 4) - 1) / (threads * 4));
+
+    if((executor == null) || (count <= chunkSize)) {
+      return convert(input, 0, count, enabled);
+    }
+
+    List<Callable<List<ContainerDashboardItem<T>>>> tasks =
+        new ArrayList<Callable<List<ContainerDashboardItem<T>>>>();
+    for(int start = 0; start < count; start += chunkSize) {
+      final int chunkStart = start;
+      final int chunkEnd = Math.min(count, start + chunkSize);
+      tasks.add(new Callable<List<ContainerDashboardItem<T>>>() {
+        @Override
+        public List<ContainerDashboardItem<T>> call() {
+          return convert(input, chunkStart, chunkEnd, enabled);
+        }
+      });
+    }
+
+    List<ContainerDashboardItem<T>> items = new ArrayList<ContainerDashboardItem<T>>(count);
+    for(Future<List<ContainerDashboardItem<T>>> future : executor.invokeAll(tasks)) {
+      try {
+        items.addAll(future.get());
+      } catch(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if(cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if(cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+    return items;
+  }
+
+  private static <T extends DashboardItemContent> List<ContainerDashboardItem<T>> convert(
+      List<T> input, int start, int end, boolean enabled) {
+    List<ContainerDashboardItem<T>> items = new ArrayList<ContainerDashboardItem<T>>(end - start);
+    for(int i = start; i < end; i++) {
+      items.add(new ContainerDashboardItem<T>(input.get(i), enabled, true));
+    }
+    return items;
+  }
+}
@@ -38,9 +38,29 @@
 package de.dimensionv.android.widget.dashboardlayout;
 
 import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.HapticFeedbackConstants;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The Dashboard layout is a self-organizing layout that contains items which are equally
@@ -48,21 +68,187 @@ import android.view.ViewGroup;
  * <p/>
  * An "item" is an object consisting of an icon and a text, which is displayed on the screen, plus
  * an ID for internal identification and usage.
+ * <p/>
+ * Children flagged as headers through their {@link DashboardLayout.LayoutParams} (which happens
+ * automatically for positions the adapter reports as
+ * {@link DashboardAdapter#ITEM_VIEW_TYPE_HEADER}) are not part of the grid. Each header starts a
+ * new row and spans the full width of the layout, while the items in between are arranged using
+ * the grid computed for the items alone.
+ * <p/>
+ * Grid solutions are cached, and the solutions for the swapped orientation and for any sizes
+ * registered through {@link #addAlternativeSize(int, int)} are computed in advance while the main
+ * thread is idle. As long as the children don't change, their sizes are reused across
+ * measurements as well, so a rotation or a multi-window resize doesn't need to measure the items
+ * or search the grid again.
+ * <p/>
+ * Focus navigation with the D-pad or the arrow keys doesn't use the framework's geometric search
+ * across all children. Instead, the neighbour of the focused item is looked up by its row and
+ * column in the grid of the last layout pass. Optionally, the focus wraps around at the edges of
+ * the grid (see {@link #setFocusWrapAround(boolean)}).
+ * <p/>
+ * Items can show a live value as a badge in the top right corner of their cell (see
+ * {@link #getBadge(long)}). Badge values may change at any rate and from any thread; each cell is
+ * redrawn at most once per frame, without measuring or laying out anything.
+ * <p/>
+ * With progressive population enabled (see {@link #setProgressivePopulation(boolean)}), only the
+ * items visible in the first frame are bound right away. The remaining positions are held by
+ * invisible placeholders, which are replaced by their items in time slices on the following
+ * frames.
+ * <p/>
+ * By default, every item is measured to find the size of the cells. For catalogs where all items
+ * look alike, the cell size can be declared instead ({@link #CELL_SIZE_FIXED}), or estimated from
+ * a bounded sample of the items ({@link #CELL_SIZE_SAMPLED}), see
+ * {@link #setCellSizeMode(int)}. Both modes are available as XML attributes as well.
+ * <p/>
+ * With drag-to-reorder enabled (see {@link #setDragReorderEnabled(boolean)}), a long press picks
+ * up an item, which can then be dragged to another cell. While dragging, the items in between
+ * only get translated to their new cells. The move is handed to the adapter once, on drop.
+ * <p/>
+ * With zooming enabled (see {@link #setZoomEnabled(boolean)}), a pinch gesture scales the cells.
+ * During the gesture, the rendered grid is only scaled as a whole. The cell size is changed, the
+ * grid solved again and the children re-measured once the gesture ends.
  *
  * @author Volkmar Seifert
- * @version 1.0
+ * @version 1.1
  * @since API 1.0.0
  */
 public class DashboardLayout extends ViewGroup {
 
-  private static final int UNEVEN_GRID_PENALTY_MULTIPLIER = 10;
+  /**
+   * Cell-size mode measuring every item, the largest one determining the cell size. This is the
+   * default.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public static final int CELL_SIZE_MEASURED = 0;
+
+  /**
+   * Cell-size mode using a declared cell size (see {@link #setCellSize(int, int)}). The items are
+   * only measured to exactly that size.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public static final int CELL_SIZE_FIXED = 1;
+
+  /**
+   * Cell-size mode estimating the cell size from a bounded sample of the items: the first items
+   * (see {@link #setCellSampleSize(int)}), plus the items with the longest labels by character
+   * count.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public static final int CELL_SIZE_SAMPLED = 2;
+
+  private static final int DEFAULT_CELL_SAMPLE_SIZE = 8;
+  private static final int LONGEST_LABEL_SAMPLES = 3;
 
   private int maxChildWidth = 0;
   private int maxChildHeight = 0;
+  private int gridCellWidth = 0;
+  private int gridCellHeight = 0;
+  private int headersHeight = 0;
   private DashboardAdapter<? extends DashboardItem> adapter = null;
   private int desiredCols = 0;
   private int desiredRows = 0;
   private DashboardDataSetObserver observer = null;
+  private DashboardViewPool viewPool = null;
+
+  private final DashboardGridCache gridCache = new DashboardGridCache();
+  private DashboardTextFitter textFitter = null;
+  private DashboardTraceRecorder traceRecorder = null;
+  private final ArrayList<int[]> alternativeSizes = new ArrayList<int[]>();
+  private boolean childSizesValid = false;
+  private final DashboardMaxTree childSizeTree = new DashboardMaxTree();
+  private boolean childSizeTreeValid = false;
+  private int measuredItemCount = 0;
+  private int measuredAvailableWidth = 0;
+  private int measuredAvailableHeight = 0;
+  private int laidOutItemCount = 0;
+  private int laidOutWidth = 0;
+  private int laidOutHeight = 0;
+  private boolean precomputeScheduled = false;
+  private View[] focusCells = new View[0];
+  private int focusCols = 0;
+  private int focusRows = 0;
+  private boolean focusWrapAround = false;
+  private int cellSizeMode = CELL_SIZE_MEASURED;
+  private int cellWidth = 0;
+  private int cellHeight = 0;
+  private int cellSampleSize = DEFAULT_CELL_SAMPLE_SIZE;
+  private final int[] longestLabelChildren = new int[LONGEST_LABEL_SAMPLES];
+  private final int[] longestLabelLengths = new int[LONGEST_LABEL_SAMPLES];
+
+  private DashboardGrid laidOutGrid = null;
+  private boolean laidOutWithHeaders = false;
+  private boolean dragReorderEnabled = false;
+  private int touchSlop = -1;
+  private float dragDownX = 0;
+  private float dragDownY = 0;
+  private View dragCandidate = null;
+  private View dragChild = null;
+  private int dragChildIndex = -1;
+  private int dragFromCell = -1;
+  private int dragToCell = -1;
+  private final Runnable startDragAction = new Runnable() {
+    @Override
+    public void run() {
+      startDrag();
+    }
+  };
+
+  private static final float DEFAULT_MIN_CELL_SCALE = 0.5f;
+  private static final float DEFAULT_MAX_CELL_SCALE = 2f;
+  private float cellScale = 1f;
+  private float minCellScale = DEFAULT_MIN_CELL_SCALE;
+  private float maxCellScale = DEFAULT_MAX_CELL_SCALE;
+  private float[] zoomSnapLevels = null;
+  private boolean zoomEnabled = false;
+  private ScaleGestureDetector scaleDetector = null;
+  private boolean zooming = false;
+  private float gestureScale = 1f;
+  private float zoomFocusX = 0;
+  private float zoomFocusY = 0;
+
+  private static final long MAX_BADGE_VALUE = 999;
+  private static final float BADGE_TEXT_SIZE_SP = 11;
+  private final LongSparseArray<DashboardBadge> badges = new LongSparseArray<DashboardBadge>();
+  private final AtomicBoolean badgeFrameScheduled = new AtomicBoolean(false);
+  private final RectF badgeRect = new RectF();
+  private Paint badgePaint = null;
+  private Paint badgeTextPaint = null;
+  private final Runnable badgeFrame = new Runnable() {
+    @Override
+    public void run() {
+      // cleared first, so values written while updating schedule another frame
+      badgeFrameScheduled.set(false);
+      updateBadges();
+    }
+  };
+
+  private static final int DEFAULT_POPULATION_BUDGET = 4;
+  private boolean progressivePopulation = false;
+  private long populationBudgetNanos = DEFAULT_POPULATION_BUDGET * 1000000L;
+  private int populationCursor = 0;
+  private boolean populationScheduled = false;
+  private final Runnable populationSlice = new Runnable() {
+    @Override
+    public void run() {
+      populationScheduled = false;
+      if(bindPlaceholders()) {
+        schedulePopulation();
+      }
+    }
+  };
+  private final MessageQueue.IdleHandler precompute = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      precomputeScheduled = precomputeNextAlternative();
+      return precomputeScheduled;
+    }
+  };
 
   /**
    * Creates a new {@code DashboardLayout} object and the given {link Context}-object.
@@ -87,6 +273,7 @@ public class DashboardLayout extends ViewGroup {
    */
   public DashboardLayout(Context context, AttributeSet attrs) {
     super(context, attrs);
+    readAttributes(context, attrs, 0);
   }
 
   /**
@@ -101,6 +288,20 @@ public class DashboardLayout extends ViewGroup {
    */
   public DashboardLayout(Context context, AttributeSet attrs, int defStyle) {
     super(context, attrs, defStyle);
+    readAttributes(context, attrs, defStyle);
+  }
+
+  private void readAttributes(Context context, AttributeSet attrs, int defStyle) {
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.DashboardLayout, defStyle, 0);
+    try {
+      cellWidth = a.getDimensionPixelSize(R.styleable.DashboardLayout_cellWidth, 0);
+      cellHeight = a.getDimensionPixelSize(R.styleable.DashboardLayout_cellHeight, 0);
+      cellSampleSize = Math.max(1,
+          a.getInt(R.styleable.DashboardLayout_cellSampleSize, DEFAULT_CELL_SAMPLE_SIZE));
+      cellSizeMode = a.getInt(R.styleable.DashboardLayout_cellSizeMode, CELL_SIZE_MEASURED);
+    } finally {
+      a.recycle();
+    }
   }
 
   /**
@@ -123,14 +324,38 @@ public class DashboardLayout extends ViewGroup {
    */
   @Override
   protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    maxChildWidth = 0;
-    maxChildHeight = 0;
+    headersHeight = 0;
 
     int heightConstraint = MeasureSpec.AT_MOST;
     if(heightMeasureSpec < 1) {
       heightConstraint = MeasureSpec.UNSPECIFIED;
     }
 
+    int availableWidth = MeasureSpec.getSize(widthMeasureSpec);
+    int availableHeight = (heightConstraint == MeasureSpec.UNSPECIFIED)
+        ? Integer.MAX_VALUE : MeasureSpec.getSize(heightMeasureSpec);
+    boolean fixedCellSize = (cellSizeMode == CELL_SIZE_FIXED);
+    boolean reuseChildSizes = fixedCellSize || canReuseChildSizes(availableWidth, availableHeight);
+    // only the changed children are measured, the others' sizes are taken from the size tree
+    boolean incremental = !reuseChildSizes && canMeasureIncrementally(availableWidth,
+        availableHeight);
+    if(fixedCellSize) {
+      maxChildWidth = cellWidth;
+      maxChildHeight = cellHeight;
+    } else if(!reuseChildSizes && !incremental) {
+      maxChildWidth = 0;
+      maxChildHeight = 0;
+    }
+    boolean sampleChildSizes = !reuseChildSizes && (cellSizeMode == CELL_SIZE_SAMPLED);
+    boolean trackChildSizes = !reuseChildSizes && (cellSizeMode == CELL_SIZE_MEASURED);
+    boolean rebuildSizeTree = trackChildSizes && (!incremental || !childSizeTreeValid
+        || (childSizeTree.size() != getChildCount()));
+    if(rebuildSizeTree) {
+      childSizeTree.reset(getChildCount());
+    }
+    int itemCount = 0;
+    int headerCount = 0;
+
     // Measure once to find the maximum child size.
 
     int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(
@@ -138,38 +363,102 @@ public class DashboardLayout extends ViewGroup {
     int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
         MeasureSpec.getSize(heightMeasureSpec), heightConstraint);
 
+    // Headers always span the full width and are not part of the grid.
+    int headerWidthMeasureSpec = MeasureSpec.makeMeasureSpec(
+        MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.EXACTLY);
+
     final int count = getChildCount();
     for(int i = 0; i < count; i++) {
       final View child = getChildAt(i);
       if(child.getVisibility() == View.GONE) {
+        if(trackChildSizes) {
+          trackChildSize(i, 0, 0, rebuildSizeTree);
+        }
         continue;
       }
 
-      child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+      if(isHeader(child)) {
+        child.measure(headerWidthMeasureSpec, childHeightMeasureSpec);
+        headersHeight += child.getMeasuredHeight();
+        headerCount++;
+        if(trackChildSizes) {
+          trackChildSize(i, 0, 0, rebuildSizeTree);
+        }
+        continue;
+      }
+
+      itemCount++;
+      if(reuseChildSizes || sampleChildSizes) {
+        continue;
+      }
+
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      boolean changed = !incremental || child.isLayoutRequested() || (lp.naturalWidth < 0);
+      if(changed) {
+        measureForCellSize(child, childWidthMeasureSpec, childHeightMeasureSpec);
+      }
+      if(changed || rebuildSizeTree) {
+        trackChildSize(i, lp.naturalWidth, lp.naturalHeight, rebuildSizeTree);
+      }
+    }
+
+    if(sampleChildSizes) {
+      measureSample(childWidthMeasureSpec, childHeightMeasureSpec);
+    }
+
+    if(trackChildSizes) {
+      if(rebuildSizeTree) {
+        childSizeTree.build();
+      }
+      childSizeTreeValid = true;
+      if(incremental) {
+        // the grid only needs to change if the maximum actually moved
+        maxChildWidth = childSizeTree.getMaxWidth();
+        maxChildHeight = childSizeTree.getMaxHeight();
+      }
+    }
 
-      maxChildWidth = Math.max(maxChildWidth, child.getMeasuredWidth());
-      maxChildHeight = Math.max(maxChildHeight, child.getMeasuredHeight());
+    if(!reuseChildSizes) {
+      childSizesValid = true;
+      measuredItemCount = itemCount;
+      measuredAvailableWidth = availableWidth;
+      measuredAvailableHeight = availableHeight;
+    }
+
+    gridCellWidth = scaleCellSize(maxChildWidth, cellScale, availableWidth);
+    gridCellHeight = scaleCellSize(maxChildHeight, cellScale, availableHeight);
+
+    int measuredWidth = View.resolveSize(gridCellWidth, widthMeasureSpec);
+    int measuredHeight = View.resolveSize(gridCellHeight + headersHeight, heightMeasureSpec);
+
+    // The labels are fitted to the cells of the grid the items will be laid out in, before the
+    // items are measured at their final size, so layouting never changes any text size.
+    DashboardGrid fitGrid = null;
+    if((textFitter != null) && (itemCount > 0)) {
+      fitGrid = solveGrid(measuredWidth, measuredHeight - headersHeight, itemCount,
+          headerCount > 0);
     }
 
     // Measure again for each child to be exactly the same size.
 
     childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(
-        maxChildWidth, MeasureSpec.EXACTLY);
+        gridCellWidth, MeasureSpec.EXACTLY);
     childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
-        maxChildHeight, MeasureSpec.EXACTLY);
+        gridCellHeight, MeasureSpec.EXACTLY);
 
     for(int i = 0; i < count; i++) {
       final View child = getChildAt(i);
-      if(child.getVisibility() == View.GONE) {
+      if((child.getVisibility() == View.GONE) || isHeader(child)) {
         continue;
       }
 
+      if((fitGrid != null) && (child instanceof TextView)) {
+        textFitter.apply((TextView) child, fitGrid.cellWidth, fitGrid.cellHeight);
+      }
       child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
     }
 
-    setMeasuredDimension(
-        View.resolveSize(maxChildWidth, widthMeasureSpec),
-        View.resolveSize(maxChildHeight, heightMeasureSpec));
+    setMeasuredDimension(measuredWidth, measuredHeight);
   }
 
   /**
@@ -192,253 +481,2084 @@ public class DashboardLayout extends ViewGroup {
 
     int count = getChildCount();
 
-    // Calculate the number of visible children.
+    // Calculate the number of visible children, not counting the headers.
     int visibleCount = 0;
+    int headerCount = 0;
     for(int i = 0; i < count; i++) {
       final View child = getChildAt(i);
       if(child.getVisibility() == View.GONE) {
         continue;
       }
+      if(isHeader(child)) {
+        headerCount++;
+        continue;
+      }
       visibleCount++;
     }
 
+    focusCols = 0;
+    focusRows = 0;
     if(visibleCount == 0) {
-      return;
-    }
-
-    // Calculate what number of rows and columns will optimize for even
-    // horizontal and
-    // vertical whitespace between items. Start with a 1 x N grid, then try 2 x
-    // N, and so on.
-    int bestSpaceDifference = Integer.MAX_VALUE;
-    int spaceDifference = 0;
-    int[] spaceDiff = new int[visibleCount];
-    boolean haveSquare = false;
-    int root = 0;
-
-    // Horizontal and vertical space between items
-    int hSpace = 0;
-    int vSpace = 0;
-
-    int cols = 1;
-    int rows;
-
-    for(int i = 0; i < visibleCount; i++) {
-      cols = i + 1;
-      rows = ((visibleCount - 1) / cols) + 1;
-      if(cols == rows) {
-        haveSquare = ((desiredCols == desiredRows) && (visibleCount == (cols * rows)));
-        root = cols;
-      }
-
-      hSpace = ((width - (maxChildWidth * cols)) / (cols + 1));
-      vSpace = ((height - (maxChildHeight * rows)) / (rows + 1));
-
-      spaceDifference = Math.abs(vSpace - hSpace);
-      if((rows * cols) != visibleCount) {
-        spaceDifference *= DashboardLayout.UNEVEN_GRID_PENALTY_MULTIPLIER;
+      if(headerCount > 0) {
+        layoutHeadersOnly(width);
       }
-      spaceDiff[i] = spaceDifference;
+      return;
     }
 
-    rows = 0;
+    // Headers keep their measured height, the grid gets what's left.
+    int gridHeight = height - headersHeight;
 
-    // sort values and store column
-    for(int i = 0; i < visibleCount; i++) {
-      if(spaceDiff[i] < bestSpaceDifference) {
-        // Found a better whitespace squareness/ratio
-        bestSpaceDifference = spaceDiff[i];
-        cols = i + 1;
-      }
-      int currentCols = i + 1;
-      if(currentCols == desiredCols) {
-        rows = computeRows(currentCols, visibleCount);
-        if((desiredRows == 0) || (rows == desiredRows)) {
-          cols = currentCols;
-          break;
-        }
-      } else if((desiredCols == 0) && (desiredRows > 0)) {
-        rows = computeRows(cols, visibleCount);
-        if(rows == desiredRows) {
-          cols = currentCols;
-          break;
-        }
-      }
-    }
+    DashboardGrid grid = solveGrid(width, gridHeight, visibleCount, headerCount > 0);
+    laidOutItemCount = visibleCount;
+    laidOutWidth = width;
+    laidOutHeight = height;
+    schedulePrecompute();
 
-    if(haveSquare && ((cols > 1) && (cols < visibleCount))) {
-      // prefer squared arrangement unless everything can be placed into a
-      // single row or column
-      rows = cols = root;
-    } else if(rows == 0) {
-      rows = computeRows(cols, visibleCount);
-    }
+    laidOutGrid = grid;
+    laidOutWithHeaders = (headerCount > 0);
 
-    hSpace = ((width - (maxChildWidth * cols)) / (cols + 1));
-    vSpace = ((height - (maxChildHeight * rows)) / (rows + 1));
+    final int cols = grid.cols;
+    final int rows = grid.rows;
 
     // Lay out children based on calculated best-fit number of rows and cols.
 
-    // If we chose a layout that has negative horizontal or vertical space,
-    // force it to zero.
-    hSpace = Math.max(0, hSpace);
-    vSpace = Math.max(0, vSpace);
-
     // Re-use width/height variables to be child width/height.
-    width = (width - (hSpace * (cols + 1))) / cols;
-    height = (height - (vSpace * (rows + 1))) / rows;
+    width = grid.cellWidth;
+    height = grid.cellHeight;
 
     int newLeft = 0;
     int newTop = 0;
     int col = 0;
     int row = 0;
-    int visibleIndex = 0;
+    int headerOffset = 0;
+    prepareFocusCells(cols, (headerCount > 0) ? rows : DashboardGrid.computeRows(cols, visibleCount));
     for(int i = 0; i < count; i++) {
       final View child = getChildAt(i);
+      setFocusCell(child, -1);
       if(child.getVisibility() == View.GONE) {
         continue;
       }
 
-      row = visibleIndex / cols;
-      col = visibleIndex % cols;
+      if(isHeader(child)) {
+        if(col > 0) {
+          // close the row the header interrupts
+          row++;
+          col = 0;
+        }
+        newTop = (grid.getCellTop(row) - grid.vSpace) + headerOffset;
+        child.layout(0, newTop, right - left, newTop + child.getMeasuredHeight());
+        headerOffset += child.getMeasuredHeight();
+        continue;
+      }
 
-      newLeft = (hSpace * (col + 1)) + (width * col);
-      newTop = (vSpace * (row + 1)) + (height * row);
+      newLeft = grid.getCellLeft(col);
+      newTop = grid.getCellTop(row) + headerOffset;
 
       child.layout(newLeft, newTop,
-          ((hSpace == 0) && (col == (cols - 1))) ? right : (newLeft + width),
-          ((vSpace == 0) && (row == (rows - 1))) ? bottom : (newTop + height));
-      visibleIndex++;
+          ((grid.hSpace == 0) && (col == (cols - 1))) ? right : (newLeft + width),
+          ((grid.vSpace == 0) && (row == (rows - 1))) ? bottom : (newTop + height));
+      setFocusCell(child, (row * cols) + col);
+
+      if(++col == cols) {
+        col = 0;
+        row++;
+      }
     }
   }
 
   /**
-   * Compute the number of rows for a given number of columns and a given number of visible
-   * objects.
+   * Solves the grid for the given size and the current cell size. Uses the cached solutions.
    *
-   * @param cols
-   *     Number of columns per row
-   * @param visibleCount
-   *     Number of visible objects
+   * @param width
+   *     The width of the grid.
+   * @param gridHeight
+   *     The height of the grid, not including the headers.
+   * @param itemCount
+   *     The number of visible items, not counting the headers.
+   * @param withHeaders
+   *     {@code true} if there are visible headers between the items.
    *
-   * @return The number of rows.
+   * @return The grid.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  private int computeRows(int cols, int visibleCount) {
-    return ((visibleCount - 1) / cols) + 1;
+  private DashboardGrid solveGrid(int width, int gridHeight, int itemCount, boolean withHeaders) {
+    DashboardGrid grid = gridCache.solve(width, gridHeight, gridCellWidth, gridCellHeight,
+        itemCount, desiredCols, desiredRows);
+    if(withHeaders) {
+      // Every header closes the row it interrupts, so the number of rows
+      // depends on how the items are distributed among the sections. The
+      // number of columns solved for the items is kept, though.
+      grid = DashboardGrid.forColsAndRows(grid.cols, countSectionedRows(grid.cols), width,
+          gridHeight, gridCellWidth, gridCellHeight);
+    }
+    return grid;
+  }
+
+  private void measureForCellSize(View child, int widthMeasureSpec, int heightMeasureSpec) {
+    child.measure(widthMeasureSpec, heightMeasureSpec);
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    lp.naturalWidth = child.getMeasuredWidth();
+    lp.naturalHeight = child.getMeasuredHeight();
+    maxChildWidth = Math.max(maxChildWidth, lp.naturalWidth);
+    maxChildHeight = Math.max(maxChildHeight, lp.naturalHeight);
+  }
+
+  private void trackChildSize(int index, int width, int height, boolean rebuild) {
+    if(rebuild) {
+      childSizeTree.put(index, width, height);
+    } else {
+      childSizeTree.set(index, width, height);
+    }
   }
 
   /**
-   * Sets the adapter containing the items for the dashboard.
+   * Checks whether only the changed children need to be measured, because the natural sizes of
+   * all others are still known from the previous measurement. That is the case in the
+   * {@link #CELL_SIZE_MEASURED} mode, if the available size hasn't changed since.
+   * <p/>
+   * Changing the content of a single item then only measures that item again, and finds the new
+   * maximum child size in {@code O(log n)}. The other items are only measured again if the maximum
+   * actually moved, as all cells have to be resized then.
    *
-   * @param adapter
+   * @param availableWidth
+   *     The width available for a single item.
+   * @param availableHeight
+   *     The height available for a single item, or {@code Integer.MAX_VALUE} if unlimited.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @return {@code true} if the children can be measured incrementally.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public void setAdapter(DashboardAdapter<? extends DashboardItem> adapter) {
-    this.adapter = adapter;
-    populateFromAdapter();
-    adapter.registerDataSetObserver(getObserver());
+  private boolean canMeasureIncrementally(int availableWidth, int availableHeight) {
+    return (cellSizeMode == CELL_SIZE_MEASURED) && childSizesValid
+        && (availableWidth == measuredAvailableWidth) && (availableHeight == measuredAvailableHeight);
   }
 
   /**
-   * Populates the view with the items of the adapter provided through the <code>setAdapter</code>
-   * method.
+   * Measures the items sampled in the {@link #CELL_SIZE_SAMPLED} mode: the first
+   * {@code cellSampleSize} items, plus the items with the longest labels among the rest. Finding
+   * the longest labels only compares their lengths, without measuring anything.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @param widthMeasureSpec
+   *     The width constraint for the items.
+   * @param heightMeasureSpec
+   *     The height constraint for the items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public void populateFromAdapter() {
-    int count = adapter.getCount();
+  private void measureSample(int widthMeasureSpec, int heightMeasureSpec) {
+    Arrays.fill(longestLabelChildren, -1);
+    Arrays.fill(longestLabelLengths, -1);
+    int sampled = 0;
+    final int count = getChildCount();
     for(int i = 0; i < count; i++) {
-      // check if there's already a view at this index, and if so, try to reuse
-      // it. The method getChildAt() returns null if there's no child at the
-      // given position, which indicates adapter.getView() to create a new view.
-      // Otherwise, the view is handed over to getView(), which attempts to
-      // reuse it. Should that be impossible (e.g. due to incompatibilities
-      // between View-objects), getView() discards the old view and creates a
-      // new one.
-      View view = getChildAt(i);
-      addView(adapter.getView(i, view, this));
+      final View child = getChildAt(i);
+      if((child.getVisibility() == View.GONE) || isHeader(child) || isPlaceholder(child)) {
+        continue;
+      }
+      if(sampled < cellSampleSize) {
+        measureForCellSize(child, widthMeasureSpec, heightMeasureSpec);
+        sampled++;
+        continue;
+      }
+      int length = (child instanceof TextView) ? ((TextView) child).getText().length() : 0;
+      // insertion into the (tiny) list of the longest labels, longest first
+      for(int j = 0; j < LONGEST_LABEL_SAMPLES; j++) {
+        if(length > longestLabelLengths[j]) {
+          int shifted = LONGEST_LABEL_SAMPLES - j - 1;
+          System.arraycopy(longestLabelLengths, j, longestLabelLengths, j + 1, shifted);
+          System.arraycopy(longestLabelChildren, j, longestLabelChildren, j + 1, shifted);
+          longestLabelLengths[j] = length;
+          longestLabelChildren[j] = i;
+          break;
+        }
+      }
+    }
+    for(int j = 0; j < LONGEST_LABEL_SAMPLES; j++) {
+      if(longestLabelChildren[j] >= 0) {
+        measureForCellSize(getChildAt(longestLabelChildren[j]), widthMeasureSpec, heightMeasureSpec);
+      }
     }
   }
 
   /**
-   * Returns the number of columns desired
+   * Sets how the size of the cells is determined.
    *
-   * @return the number of desired columns
+   * @param cellSizeMode
+   *     One of {@link #CELL_SIZE_MEASURED}, {@link #CELL_SIZE_FIXED} or {@link #CELL_SIZE_SAMPLED}.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @throws IllegalArgumentException If the mode is unknown.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public int getDesiredCols() {
-    return desiredCols;
+  public void setCellSizeMode(int cellSizeMode) {
+    if((cellSizeMode < CELL_SIZE_MEASURED) || (cellSizeMode > CELL_SIZE_SAMPLED)) {
+      throw new IllegalArgumentException("Unknown cell-size mode " + cellSizeMode);
+    }
+    this.cellSizeMode = cellSizeMode;
+    childSizesValid = false;
+    requestLayout();
   }
 
   /**
-   * Sets the number of columns desired. If possible, the arrangement-algorithm will attempt to give
-   * this value preference over all other possibilities to arrange the items.
+   * Returns how the size of the cells is determined.
+   *
+   * @return One of {@link #CELL_SIZE_MEASURED}, {@link #CELL_SIZE_FIXED} or
+   *     {@link #CELL_SIZE_SAMPLED}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public int getCellSizeMode() {
+    return cellSizeMode;
+  }
+
+  /**
+   * Declares the size of the cells, and switches to the {@link #CELL_SIZE_FIXED} mode.
+   *
+   * @param width
+   *     The width of the cells in pixels.
+   * @param height
+   *     The height of the cells in pixels.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setCellSize(int width, int height) {
+    cellWidth = Math.max(0, width);
+    cellHeight = Math.max(0, height);
+    setCellSizeMode(CELL_SIZE_FIXED);
+  }
+
+  /**
+   * Sets the number of leading items measured in the {@link #CELL_SIZE_SAMPLED} mode, in addition
+   * to the items with the longest labels.
+   *
+   * @param cellSampleSize
+   *     The number of items. Default is 8.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setCellSampleSize(int cellSampleSize) {
+    this.cellSampleSize = Math.max(1, cellSampleSize);
+    childSizesValid = false;
+    requestLayout();
+  }
+
+  /**
+   * Checks whether the maximum child size determined by the previous measurement is still valid
+   * for the given available size, so that the items don't need to be measured again.
    * <p/>
-   * If both, desired columns and desired rows are set, the algorithm will attempt to comply to
-   * both, if possible.
+   * That is the case if the children haven't changed since, and none of them was limited by the
+   * previously available size, nor would be by the new one.
    *
-   * @param desiredCols
-   *     the number of columns desired
+   * @param availableWidth
+   *     The width available for a single item.
+   * @param availableHeight
+   *     The height available for a single item, or {@code Integer.MAX_VALUE} if unlimited.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @return {@code true} if the previous measurement can be reused.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public void setDesiredCols(int desiredCols) {
-    this.desiredCols = desiredCols;
+  private boolean canReuseChildSizes(int availableWidth, int availableHeight) {
+    if(!childSizesValid
+        || (maxChildWidth >= measuredAvailableWidth) || (maxChildHeight >= measuredAvailableHeight)
+        || (maxChildWidth > availableWidth) || (maxChildHeight > availableHeight)) {
+      return false;
+    }
+    int itemCount = 0;
+    final int count = getChildCount();
+    for(int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      if((child.getVisibility() == View.GONE) || isHeader(child)) {
+        continue;
+      }
+      if(child.isLayoutRequested()) {
+        return false;
+      }
+      itemCount++;
+    }
+    return itemCount == measuredItemCount;
   }
 
   /**
-   * Returns the number of rows desired
+   * Sets the fitter used for sizing the labels of the items to their cells. Items that are
+   * {@code TextView}s (like the default {@code Button}s) get the largest text size that fits their
+   * cell on a single line. The labels are fitted while measuring, and their text size is only
+   * changed if it differs from the fitted one. A single fitter may be shared by several layouts, so
+   * they share its cached results as well.
    *
-   * @return the number of desired rows
+   * @param textFitter
+   *     The fitter, or {@code null} to keep the text sizes of the items as they are.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public int getDesiredRows() {
-    return desiredRows;
+  public void setTextFitter(DashboardTextFitter textFitter) {
+    this.textFitter = textFitter;
+    requestLayout();
   }
 
   /**
-   * Sets the number of rows desired. If possible, the arrangement-algorithm will attempt to give
-   * this value preference over all other possibilities to arrange the items.
+   * Returns the fitter used for sizing the labels of the items to their cells.
+   *
+   * @return The fitter, or {@code null} if none is set.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public DashboardTextFitter getTextFitter() {
+    return textFitter;
+  }
+
+  /**
+   * Registers a viewport size this layout is likely to be resized to, e.g. a known split-screen
+   * size. The grid solution for this size is computed in advance while the main thread is idle.
+   * The solution for the swapped orientation of the current size is always computed in advance,
+   * and doesn't need to be registered.
+   *
+   * @param width
+   *     The width of the layout.
+   * @param height
+   *     The height of the layout.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void addAlternativeSize(int width, int height) {
+    alternativeSizes.add(new int[]{width, height});
+    schedulePrecompute();
+  }
+
+  /**
+   * Removes all sizes registered through {@link #addAlternativeSize(int, int)}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void clearAlternativeSizes() {
+    alternativeSizes.clear();
+  }
+
+  /**
+   * Sets whether items can be reordered by dragging them. A long press picks up an item, and
+   * dropping it on another cell moves it there using {@link DashboardAdapter#moveItem(int, int)}.
+   * During the gesture, the items are only translated to their new cells, nothing is rebound,
+   * measured or laid out.
    * <p/>
-   * If both, desired rows and desired columns are set, the algorithm will attempt to comply to
-   * both, if possible.
+   * Dragging is only available while the layout has no headers, and only if its adapter can move
+   * items (see {@link DashboardAdapter#canMoveItems()}). Items of read-only adapters are simply
+   * not picked up. Before Honeycomb, translations
+   * aren't supported by the platform, so the items only move when they are dropped.
    *
-   * @param desiredRows
-   *     the number of rows desired
+   * @param dragReorderEnabled
+   *     {@code true} to enable drag-to-reorder. Default is {@code false}.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  public void setDesiredRows(int desiredRows) {
-    this.desiredRows = desiredRows;
+  public void setDragReorderEnabled(boolean dragReorderEnabled) {
+    this.dragReorderEnabled = dragReorderEnabled;
+    if(!dragReorderEnabled) {
+      finishDrag(false);
+    }
   }
 
   /**
-   * Each DashboardLayout-instance holds its own, single instance of the DashboarDataSetObserver.
-   * This method takes care of returning it, if it already exists, or instantiates it, if it does
-   * not exist, yet. Therefore, the observer-object must never be used directly, only via this
-   * method.
+   * Returns whether items can be reordered by dragging them.
    *
-   * @return the observer-instance of this DashboardLayout-object.
+   * @return {@code true} if drag-to-reorder is enabled, {@code false} otherwise.
    *
-   * @since Class 1.0
-   * @since API 1.0.0
+   * @since Class 1.1
+   * @since API 1.1.0
    */
-  private DashboardDataSetObserver getObserver() {
-    if(observer == null) {
-      observer = new DashboardDataSetObserver(this);
+  public boolean isDragReorderEnabled() {
+    return dragReorderEnabled;
+  }
+
+  @Override
+  public boolean onInterceptTouchEvent(MotionEvent ev) {
+    if(zoomEnabled) {
+      getScaleDetector().onTouchEvent(ev);
+      if(zooming || (ev.getPointerCount() > 1)) {
+        return true;
+      }
+    }
+    if(!dragReorderEnabled) {
+      return false;
+    }
+    boolean dragging = (dragChild != null);
+    switch(ev.getAction() & MotionEvent.ACTION_MASK) {
+      case MotionEvent.ACTION_DOWN:
+        dragDownX = ev.getX();
+        dragDownY = ev.getY();
+        dragCandidate = findDragCandidate(dragDownX, dragDownY);
+        if(dragCandidate != null) {
+          postDelayed(startDragAction, ViewConfiguration.getLongPressTimeout());
+        }
+        break;
+      case MotionEvent.ACTION_MOVE:
+        checkDragSlop(ev.getX(), ev.getY());
+        break;
+      case MotionEvent.ACTION_UP:
+        finishDrag(true);
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        finishDrag(false);
+        break;
+    }
+    return dragging;
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent ev) {
+    if(zoomEnabled) {
+      // the down event has already been seen by onInterceptTouchEvent()
+      if((ev.getAction() & MotionEvent.ACTION_MASK) != MotionEvent.ACTION_DOWN) {
+        getScaleDetector().onTouchEvent(ev);
+      }
+      if(zooming || (ev.getPointerCount() > 1)) {
+        return true;
+      }
+    }
+    if(!dragReorderEnabled) {
+      return zoomEnabled || super.onTouchEvent(ev);
+    }
+    switch(ev.getAction() & MotionEvent.ACTION_MASK) {
+      case MotionEvent.ACTION_DOWN:
+        // keep receiving the gesture while waiting for the long press
+        return dragCandidate != null;
+      case MotionEvent.ACTION_MOVE:
+        if(dragChild != null) {
+          updateDrag(ev.getX(), ev.getY());
+        } else {
+          checkDragSlop(ev.getX(), ev.getY());
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        finishDrag(true);
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        finishDrag(false);
+        break;
+    }
+    return true;
+  }
+
+  /**
+   * Sets whether the cells can be scaled using a pinch gesture. While the gesture is in progress,
+   * the grid is only scaled as a whole when it is drawn. When it ends, the cells are scaled by the
+   * resulting factor (see {@link #setCellScale(float)}), or by the nearest snap level if any are
+   * set, which re-solves the grid and re-measures the children once.
+   *
+   * @param zoomEnabled
+   *     {@code true} to enable pinch-to-zoom. Default is {@code false}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setZoomEnabled(boolean zoomEnabled) {
+    this.zoomEnabled = zoomEnabled;
+  }
+
+  /**
+   * Returns whether the cells can be scaled using a pinch gesture.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public boolean isZoomEnabled() {
+    return zoomEnabled;
+  }
+
+  /**
+   * Sets the factor the size of the cells is scaled by, relative to the size determined by the
+   * cell-size mode. The factor is clamped to the zoom range (see
+   * {@link #setZoomRange(float, float)}).
+   *
+   * @param cellScale
+   *     The factor. Default is {@code 1}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setCellScale(float cellScale) {
+    cellScale = Math.max(minCellScale, Math.min(cellScale, maxCellScale));
+    if(cellScale != this.cellScale) {
+      this.cellScale = cellScale;
+      // the natural sizes of the children stay the same, only the exact pass is repeated
+      requestLayout();
+    }
+  }
+
+  /**
+   * Returns the factor the size of the cells is scaled by.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public float getCellScale() {
+    return cellScale;
+  }
+
+  /**
+   * Sets the range of factors the cells can be scaled by.
+   *
+   * @param min
+   *     The minimum factor. Default is {@code 0.5}.
+   * @param max
+   *     The maximum factor. Default is {@code 2}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setZoomRange(float min, float max) {
+    minCellScale = Math.min(min, max);
+    maxCellScale = Math.max(min, max);
+    setCellScale(cellScale);
+  }
+
+  /**
+   * Sets the factors a pinch gesture snaps to when it ends. The grid solutions for all snap levels
+   * are computed when the gesture starts, so ending the gesture doesn't need to search the grid.
+   *
+   * @param levels
+   *     The factors, or {@code null} to use the factor the gesture ends with.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setZoomSnapLevels(float... levels) {
+    zoomSnapLevels = ((levels != null) && (levels.length > 0)) ? levels.clone() : null;
+  }
+
+  private static int scaleCellSize(int size, float scale, int available) {
+    if(scale == 1f) {
+      return size;
+    }
+    int scaled = Math.max(1, Math.round(size * scale));
+    // an unspecified measure spec has no size to clamp to
+    return (available > 0) ? Math.min(scaled, available) : scaled;
+  }
+
+  private ScaleGestureDetector getScaleDetector() {
+    if(scaleDetector == null) {
+      scaleDetector = new ScaleGestureDetector(getContext(), new ZoomListener());
+    }
+    return scaleDetector;
+  }
+
+  /**
+   * Solves the grids for all snap levels in advance, so the solution for the level the gesture
+   * ends with is cached.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void precomputeSnapLevels() {
+    if((zoomSnapLevels == null) || (laidOutItemCount == 0) || laidOutWithHeaders) {
+      return;
+    }
+    int gridHeight = laidOutHeight - headersHeight;
+    for(float level : zoomSnapLevels) {
+      float scale = Math.max(minCellScale, Math.min(level, maxCellScale));
+      gridCache.solve(laidOutWidth, gridHeight,
+          scaleCellSize(maxChildWidth, scale, measuredAvailableWidth),
+          scaleCellSize(maxChildHeight, scale, measuredAvailableHeight),
+          laidOutItemCount, desiredCols, desiredRows);
+    }
+  }
+
+  private float snapCellScale(float scale) {
+    if(zoomSnapLevels == null) {
+      return scale;
+    }
+    float snapped = zoomSnapLevels[0];
+    for(float level : zoomSnapLevels) {
+      if(Math.abs(level - scale) < Math.abs(snapped - scale)) {
+        snapped = level;
+      }
+    }
+    return snapped;
+  }
+
+  /**
+   * Scales the rendered grid while pinching, and applies the new cell scale when the gesture
+   * ends.
+   */
+  private final class ZoomListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+    @Override
+    public boolean onScaleBegin(ScaleGestureDetector detector) {
+      finishDrag(false);
+      zooming = true;
+      gestureScale = 1f;
+      if(getParent() != null) {
+        getParent().requestDisallowInterceptTouchEvent(true);
+      }
+      precomputeSnapLevels();
+      return true;
+    }
+
+    @Override
+    public boolean onScale(ScaleGestureDetector detector) {
+      float scale = gestureScale * detector.getScaleFactor();
+      gestureScale = Math.max(minCellScale, Math.min(cellScale * scale, maxCellScale)) / cellScale;
+      zoomFocusX = detector.getFocusX();
+      zoomFocusY = detector.getFocusY();
+      invalidate();
+      return true;
+    }
+
+    @Override
+    public void onScaleEnd(ScaleGestureDetector detector) {
+      zooming = false;
+      float scale = snapCellScale(cellScale * gestureScale);
+      gestureScale = 1f;
+      setCellScale(scale);
+      invalidate();
+    }
+  }
+
+  /**
+   * Draws the dragged child last, so it stays on top of the items it's dragged across.
+   *
+   * @see android.view.ViewGroup#getChildDrawingOrder(int, int)
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  @Override
+  protected int getChildDrawingOrder(int childCount, int i) {
+    if((dragChildIndex < 0) || (dragChildIndex >= childCount)) {
+      return i;
+    }
+    if(i == (childCount - 1)) {
+      return dragChildIndex;
+    }
+    return (i < dragChildIndex) ? i : (i + 1);
+  }
+
+  private View findDragCandidate(float x, float y) {
+    if((adapter == null) || !adapter.canMoveItems()) {
+      // items of read-only adapters are never picked up
+      return null;
+    }
+    if((laidOutGrid == null) || laidOutWithHeaders || (focusCols == 0) || isLayoutRequested()) {
+      return null;
+    }
+    View child = focusCells[cellAt(x, y)];
+    if((child == null) || (child.getParent() != this) || (x < child.getLeft())
+        || (x >= child.getRight()) || (y < child.getTop()) || (y >= child.getBottom())) {
+      return null;
+    }
+    return child;
+  }
+
+  /**
+   * Returns the grid cell at the given point, clamped to the cells occupied by items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private int cellAt(float x, float y) {
+    DashboardGrid grid = laidOutGrid;
+    int col = (int) ((x - (grid.hSpace / 2f)) / Math.max(1, grid.cellWidth + grid.hSpace));
+    int row = (int) ((y - (grid.vSpace / 2f)) / Math.max(1, grid.cellHeight + grid.vSpace));
+    col = Math.max(0, Math.min(col, focusCols - 1));
+    row = Math.max(0, Math.min(row, focusRows - 1));
+    return Math.min((row * focusCols) + col, laidOutItemCount - 1);
+  }
+
+  private void checkDragSlop(float x, float y) {
+    if(touchSlop < 0) {
+      touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+    }
+    if((dragChild == null)
+        && ((Math.abs(x - dragDownX) > touchSlop) || (Math.abs(y - dragDownY) > touchSlop))) {
+      removeCallbacks(startDragAction);
+      dragCandidate = null;
+    }
+  }
+
+  private void startDrag() {
+    View child = dragCandidate;
+    dragCandidate = null;
+    if((child == null) || (child.getParent() != this) || isLayoutRequested() || (adapter == null)
+        || !adapter.canMoveItems()) {
+      return;
+    }
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    dragFromCell = dragToCell = ((LayoutParams) params).cell;
+    if(dragFromCell < 0) {
+      return;
+    }
+    dragChild = child;
+    dragChildIndex = indexOfChild(child);
+    child.setPressed(false);
+    setChildrenDrawingOrderEnabled(true);
+    if(getParent() != null) {
+      getParent().requestDisallowInterceptTouchEvent(true);
+    }
+    performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+    invalidate();
+  }
+
+  private void updateDrag(float x, float y) {
+    ViewCompat.setTranslationX(dragChild, x - dragDownX);
+    ViewCompat.setTranslationY(dragChild, y - dragDownY);
+    int target = cellAt(x, y);
+    if(target == dragToCell) {
+      return;
+    }
+    int first = Math.min(dragFromCell, Math.min(dragToCell, target));
+    int last = Math.max(dragFromCell, Math.max(dragToCell, target));
+    dragToCell = target;
+    for(int cell = first; cell <= last; cell++) {
+      View child = focusCells[cell];
+      if((child == null) || (child == dragChild)) {
+        continue;
+      }
+      int destination = cell;
+      if((dragFromCell < dragToCell) && (cell > dragFromCell) && (cell <= dragToCell)) {
+        destination = cell - 1;
+      } else if((dragToCell < dragFromCell) && (cell >= dragToCell) && (cell < dragFromCell)) {
+        destination = cell + 1;
+      }
+      translateToCell(child, cell, destination);
+    }
+  }
+
+  private void translateToCell(View child, int cell, int destination) {
+    DashboardGrid grid = laidOutGrid;
+    ViewCompat.setTranslationX(child,
+        grid.getCellLeft(destination % focusCols) - grid.getCellLeft(cell % focusCols));
+    ViewCompat.setTranslationY(child,
+        grid.getCellTop(destination / focusCols) - grid.getCellTop(cell / focusCols));
+  }
+
+  /**
+   * Ends the current drag, if any, resetting all translations.
+   *
+   * @param drop
+   *     {@code true} to hand the move to the adapter, {@code false} to cancel it.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void finishDrag(boolean drop) {
+    removeCallbacks(startDragAction);
+    dragCandidate = null;
+    View child = dragChild;
+    if(child == null) {
+      return;
+    }
+    dragChild = null;
+    dragChildIndex = -1;
+    setChildrenDrawingOrderEnabled(false);
+    int first = Math.min(dragFromCell, dragToCell);
+    int last = Math.max(dragFromCell, dragToCell);
+    for(int cell = first; (cell <= last) && (cell < focusCells.length); cell++) {
+      if(focusCells[cell] != null) {
+        ViewCompat.setTranslationX(focusCells[cell], 0);
+        ViewCompat.setTranslationY(focusCells[cell], 0);
+      }
+    }
+    invalidate();
+    if(!drop || (adapter == null) || (dragToCell == dragFromCell)) {
+      return;
+    }
+    int fromPosition = indexOfChild(child);
+    int toPosition = indexOfChild(focusCells[dragToCell]);
+    if((fromPosition >= 0) && (toPosition >= 0)) {
+      // the layout rearranges the children when notified of the move
+      adapter.moveItem(fromPosition, toPosition);
+    }
+  }
+
+  /**
+   * Sets whether the focus wraps around at the edges of the grid. If it does, moving right from
+   * the last item of a row continues with the first item of the next row, and moving down from the
+   * last row continues with the first row (and vice versa). If it doesn't, the focus leaves this
+   * layout at its edges, as determined by the parent.
+   *
+   * @param focusWrapAround
+   *     {@code true} to wrap around, {@code false} to leave the layout. Default is {@code false}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setFocusWrapAround(boolean focusWrapAround) {
+    this.focusWrapAround = focusWrapAround;
+  }
+
+  /**
+   * Returns whether the focus wraps around at the edges of the grid.
+   *
+   * @return {@code true} if the focus wraps around, {@code false} otherwise.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public boolean isFocusWrapAround() {
+    return focusWrapAround;
+  }
+
+  /**
+   * Looks up the neighbour of the focused item by its row and column in the grid, instead of
+   * searching all children geometrically. The search is only handed to the parent if there is no
+   * neighbour in the given direction, or if the grid is about to be laid out again.
+   *
+   * @see android.view.ViewGroup#focusSearch(android.view.View, int)
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  @Override
+  public View focusSearch(View focused, int direction) {
+    View next = findGridNeighbour(focused, direction);
+    return (next != null) ? next : super.focusSearch(focused, direction);
+  }
+
+  private void prepareFocusCells(int cols, int rows) {
+    int cellCount = cols * rows;
+    if(focusCells.length < cellCount) {
+      focusCells = new View[cellCount];
+    } else {
+      Arrays.fill(focusCells, null);
+    }
+    focusCols = cols;
+    focusRows = rows;
+  }
+
+  private void setFocusCell(View child, int cell) {
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    if(params instanceof LayoutParams) {
+      ((LayoutParams) params).cell = cell;
+      if((cell >= 0) && (cell < focusCells.length)) {
+        focusCells[cell] = child;
+      }
+    }
+  }
+
+  /**
+   * Returns the grid cell of the item containing the given view.
+   *
+   * @param focused
+   *     The item, or any of its descendants.
+   *
+   * @return The index of the cell ({@code row * cols + col}), or {@code -1} if the view isn't
+   *     part of the grid, or if the grid is about to be laid out again.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  int getFocusCell(View focused) {
+    if((focusCols == 0) || isLayoutRequested()) {
+      return -1;
+    }
+    View child = focused;
+    while((child != null) && (child.getParent() != this)) {
+      ViewParent parent = child.getParent();
+      child = (parent instanceof View) ? (View) parent : null;
+    }
+    if(child == null) {
+      return -1;
+    }
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    return (params instanceof LayoutParams) ? ((LayoutParams) params).cell : -1;
+  }
+
+  /**
+   * Returns the number of columns of the grid, as of the last layout pass.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  int getFocusCols() {
+    return focusCols;
+  }
+
+  /**
+   * Returns the first item of the given row that can take focus, starting from the left or the
+   * right edge of the grid.
+   *
+   * @param row
+   *     The row. Rows beyond the last one are mapped to the last one.
+   * @param fromLeft
+   *     {@code true} to start from the left edge, {@code false} to start from the right edge.
+   *
+   * @return The item, or {@code null} if there is none.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  View findEdgeCell(int row, boolean fromLeft) {
+    if((focusRows == 0) || isLayoutRequested()) {
+      return null;
+    }
+    int first = Math.max(0, Math.min(row, focusRows - 1)) * focusCols;
+    for(int col = 0; col < focusCols; col++) {
+      View candidate = focusCells[first + (fromLeft ? col : (focusCols - 1 - col))];
+      if(canTakeFocus(candidate)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private View findGridNeighbour(View focused, int direction) {
+    int cell = getFocusCell(focused);
+    if(cell < 0) {
+      return null;
+    }
+    int row = cell / focusCols;
+    int col = cell % focusCols;
+    int cellCount = focusCols * focusRows;
+
+    switch(direction) {
+      case View.FOCUS_LEFT:
+      case View.FOCUS_RIGHT: {
+        int step = (direction == View.FOCUS_RIGHT) ? 1 : -1;
+        int rowStart = row * focusCols;
+        for(int i = 1; i < cellCount; i++) {
+          int next = cell + (i * step);
+          if(!focusWrapAround && ((next < rowStart) || (next >= (rowStart + focusCols)))) {
+            return null;
+          }
+          View candidate = focusCells[(next + cellCount) % cellCount];
+          if(canTakeFocus(candidate)) {
+            return candidate;
+          }
+        }
+        return null;
+      }
+      case View.FOCUS_UP:
+      case View.FOCUS_DOWN: {
+        int step = (direction == View.FOCUS_DOWN) ? 1 : -1;
+        for(int i = 1; i < focusRows; i++) {
+          int nextRow = row + (i * step);
+          if((nextRow < 0) || (nextRow >= focusRows)) {
+            if(!focusWrapAround) {
+              return null;
+            }
+            nextRow = (nextRow + focusRows) % focusRows;
+          }
+          // rows closed by a header may be shorter, so fall back to their last item
+          for(int nextCol = col; nextCol >= 0; nextCol--) {
+            View candidate = focusCells[(nextRow * focusCols) + nextCol];
+            if(canTakeFocus(candidate)) {
+              return candidate;
+            }
+          }
+        }
+        return null;
+      }
+      default:
+        return null;
+    }
+  }
+
+  private boolean canTakeFocus(View candidate) {
+    return (candidate != null) && (candidate.getParent() == this)
+        && (candidate.getVisibility() == View.VISIBLE) && candidate.isEnabled()
+        && candidate.hasFocusable();
+  }
+
+  /**
+   * Returns the badge of the item with the given ID, creating it if necessary. The badge stays
+   * attached to the ID, so it is shown on whichever child the item is bound to, and survives
+   * changes of the adapter.
+   * <p/>
+   * This method must be called on the main thread, but the returned badge can be written from any
+   * thread.
+   *
+   * @param itemId
+   *     The ID of the item, as reported by {@link DashboardAdapter#getItemId(int)}.
+   *
+   * @return The badge.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public DashboardBadge getBadge(long itemId) {
+    DashboardBadge badge = badges.get(itemId);
+    if(badge == null) {
+      if(badgePaint == null) {
+        setBadgeColors(Color.RED, Color.WHITE);
+      }
+      badge = new DashboardBadge(this);
+      badges.put(itemId, badge);
+    }
+    return badge;
+  }
+
+  /**
+   * Removes the badge of the item with the given ID. Values written to the removed badge are
+   * ignored from now on. This method must be called on the main thread.
+   *
+   * @param itemId
+   *     The ID of the item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void removeBadge(long itemId) {
+    if(badges.get(itemId) != null) {
+      badges.remove(itemId);
+      invalidate();
+    }
+  }
+
+  /**
+   * Sets the colors of the badges.
+   *
+   * @param backgroundColor
+   *     The color of the badge itself. Default is red.
+   * @param textColor
+   *     The color of the value. Default is white.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setBadgeColors(int backgroundColor, int textColor) {
+    if(badgePaint == null) {
+      badgePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+      badgeTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+      badgeTextPaint.setTextAlign(Paint.Align.CENTER);
+      badgeTextPaint.setFakeBoldText(true);
+      badgeTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+          BADGE_TEXT_SIZE_SP, getResources().getDisplayMetrics()));
+    }
+    badgePaint.setColor(backgroundColor);
+    badgeTextPaint.setColor(textColor);
+    invalidate();
+  }
+
+  /**
+   * Called by a {@link DashboardBadge} of this layout when its value changed, on any thread.
+   * Schedules a single badge update for the next frame, no matter how often it is called.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void onBadgeChanged() {
+    if(badgeFrameScheduled.compareAndSet(false, true)) {
+      ViewCompat.postOnAnimation(this, badgeFrame);
+    }
+  }
+
+  /**
+   * Takes over the latest values of the badges, and invalidates the cells whose badge changed.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void updateBadges() {
+    if(badges.size() == 0) {
+      return;
+    }
+    final int count = getChildCount();
+    for(int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      DashboardBadge badge = findBadge(child);
+      if((badge != null) && badge.update() && (child.getVisibility() == View.VISIBLE)) {
+        invalidate(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+      }
+    }
+  }
+
+  private DashboardBadge findBadge(View child) {
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    if(!(params instanceof LayoutParams) || ((LayoutParams) params).header) {
+      return null;
+    }
+    return badges.get(((LayoutParams) params).itemId);
+  }
+
+  @Override
+  protected void dispatchDraw(Canvas canvas) {
+    int saveCount = -1;
+    if(gestureScale != 1f) {
+      // pinch in progress: the rendered grid is only scaled, not laid out again
+      saveCount = canvas.save();
+      canvas.scale(gestureScale, gestureScale, zoomFocusX, zoomFocusY);
+    }
+    super.dispatchDraw(canvas);
+    if(badges.size() > 0) {
+      drawBadges(canvas);
+    }
+    if(saveCount >= 0) {
+      canvas.restoreToCount(saveCount);
+    }
+  }
+
+  private void drawBadges(Canvas canvas) {
+    final int count = getChildCount();
+    for(int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      DashboardBadge badge = findBadge(child);
+      if(badge == null) {
+        continue;
+      }
+      badge.update();
+      if((badge.shownValue != 0) && (child.getVisibility() == View.VISIBLE)) {
+        drawBadge(canvas, child, badge);
+      }
+    }
+  }
+
+  private void drawBadge(Canvas canvas, View child, DashboardBadge badge) {
+    if(badge.shownText == null) {
+      badge.shownText = (badge.shownValue > MAX_BADGE_VALUE)
+          ? (MAX_BADGE_VALUE + "+") : String.valueOf(badge.shownValue);
+      badge.shownWidth = badgeTextPaint.measureText(badge.shownText);
+    }
+    float textSize = badgeTextPaint.getTextSize();
+    float height = textSize * 1.5f;
+    float width = Math.min(Math.max(height, badge.shownWidth + textSize), child.getWidth());
+    // stays within the cell, which is all that gets invalidated
+    badgeRect.set(child.getRight() - width, child.getTop(), child.getRight(),
+        child.getTop() + Math.min(height, child.getHeight()));
+    canvas.drawRoundRect(badgeRect, height / 2, height / 2, badgePaint);
+    canvas.drawText(badge.shownText, badgeRect.centerX(),
+        badgeRect.centerY() - ((badgeTextPaint.ascent() + badgeTextPaint.descent()) / 2),
+        badgeTextPaint);
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    // frames requested while detached may have been dropped
+    badgeFrameScheduled.set(false);
+    if(badges.size() > 0) {
+      onBadgeChanged();
+    }
+    if(progressivePopulation && (adapter != null)) {
+      populationCursor = 0;
+      schedulePopulation();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    if(populationScheduled) {
+      removeCallbacks(populationSlice);
+      populationScheduled = false;
+    }
+    if(precomputeScheduled) {
+      Looper.myQueue().removeIdleHandler(precompute);
+      precomputeScheduled = false;
+    }
+    super.onDetachedFromWindow();
+  }
+
+  private void schedulePrecompute() {
+    if(!precomputeScheduled && (laidOutItemCount > 0)) {
+      precomputeScheduled = true;
+      Looper.myQueue().addIdleHandler(precompute);
+    }
+  }
+
+  /**
+   * Computes the grid solution for the next alternative size that isn't cached yet. The height of
+   * the headers is assumed to stay the same.
+   *
+   * @return {@code true} if there may be more work left, {@code false} if all alternative sizes
+   *     are cached.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private boolean precomputeNextAlternative() {
+    if(laidOutItemCount == 0) {
+      return false;
+    }
+    int size = alternativeSizes.size();
+    for(int i = -1; i < size; i++) {
+      int width = (i < 0) ? laidOutHeight : alternativeSizes.get(i)[0];
+      int height = ((i < 0) ? laidOutWidth : alternativeSizes.get(i)[1]) - headersHeight;
+      if((width <= 0) || (height <= 0) || gridCache.contains(width, height, gridCellWidth,
+          gridCellHeight, laidOutItemCount, desiredCols, desiredRows)) {
+        continue;
+      }
+      gridCache.solve(width, height, gridCellWidth, gridCellHeight, laidOutItemCount, desiredCols,
+          desiredRows);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Counts the rows needed for the given number of columns, taking into account that every header
+   * closes the row it interrupts.
+   *
+   * @param cols
+   *     Number of columns per row
+   *
+   * @return The number of rows occupied by items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private int countSectionedRows(int cols) {
+    int rows = 0;
+    int sectionCount = 0;
+    final int count = getChildCount();
+    for(int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      if(child.getVisibility() == View.GONE) {
+        continue;
+      }
+      if(!isHeader(child)) {
+        sectionCount++;
+      } else if(sectionCount > 0) {
+        rows += DashboardGrid.computeRows(cols, sectionCount);
+        sectionCount = 0;
+      }
+    }
+    if(sectionCount > 0) {
+      rows += DashboardGrid.computeRows(cols, sectionCount);
+    }
+    return rows;
+  }
+
+  /**
+   * Stacks the headers on top of each other. Only used when there are no items to be arranged in
+   * the grid.
+   *
+   * @param width
+   *     The width of this layout.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void layoutHeadersOnly(int width) {
+    int newTop = 0;
+    final int count = getChildCount();
+    for(int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      if(child.getVisibility() == View.GONE) {
+        continue;
+      }
+      child.layout(0, newTop, width, newTop + child.getMeasuredHeight());
+      newTop += child.getMeasuredHeight();
+    }
+  }
+
+  /**
+   * Checks whether the given child is a header, as opposed to an item that is arranged in the
+   * grid.
+   *
+   * @param child
+   *     The child to be checked.
+   *
+   * @return {@code true} if the child is a header, {@code false} otherwise.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  static boolean isHeader(View child) {
+    ViewGroup.LayoutParams lp = child.getLayoutParams();
+    return (lp instanceof LayoutParams) && ((LayoutParams) lp).header;
+  }
+
+  /**
+   * Sets the adapter containing the items for the dashboard. The layout stops observing the
+   * previous adapter, if any. Existing children are rebound by position, and children beyond the
+   * new adapter's count are removed.
+   * <p/>
+   * To rebind existing children by the IDs of their items instead, use
+   * {@link #swapAdapter(DashboardAdapter)}.
+   *
+   * @param adapter
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public void setAdapter(DashboardAdapter<? extends DashboardItem> adapter) {
+    if(this.adapter != null) {
+      this.adapter.unregisterDataSetObserver(getObserver());
+    }
+    this.adapter = adapter;
+    populateFromAdapter();
+    adapter.registerDataSetObserver(getObserver());
+  }
+
+  /**
+   * Returns the child bound to the item with the given ID. The position of the item is looked up
+   * using {@link DashboardAdapter#getPositionForItemId(long)}, so this takes constant time.
+   *
+   * @param id
+   *     The ID of the item.
+   *
+   * @return The child, or {@code null} if there is no such item, or if it isn't bound, yet.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public View findViewForItemId(long id) {
+    if(adapter == null) {
+      return null;
+    }
+    int position = adapter.getPositionForItemId(id);
+    if((position < 0) || (position >= getChildCount())) {
+      return null;
+    }
+    View child = getChildAt(position);
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    if(isPlaceholder(child) || !(params instanceof LayoutParams)
+        || (((LayoutParams) params).itemId != id)) {
+      return null;
+    }
+    return child;
+  }
+
+  /**
+   * Replaces the adapter, reusing the existing children by the IDs of their items.
+   * <p/>
+   * The layout stops observing the previous adapter. Every child whose item ID is reported by the
+   * new adapter as well (with the same view type) is handed to the new adapter for rebinding and
+   * moved to its new position. The remaining children are used for the new adapter's other items,
+   * before any views are taken from the view pool or inflated. Children that are left over are
+   * returned to the view pool, if one is set.
+   * <p/>
+   * Switching between adapters sharing most of their items therefore only costs rebinding the
+   * children, instead of inflating all of them again.
+   *
+   * @param newAdapter
+   *     The new adapter, or {@code null} to remove all items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void swapAdapter(DashboardAdapter<? extends DashboardItem> newAdapter) {
+    if(newAdapter == null) {
+      releaseAdapter();
+      return;
+    }
+    finishDrag(false);
+    if(adapter != null) {
+      adapter.unregisterDataSetObserver(getObserver());
+    }
+    adapter = newAdapter;
+
+    // index the old children by item ID, so they can be matched with the new items
+    final int oldCount = getChildCount();
+    LongSparseArray<View> oldChildrenById = new LongSparseArray<View>();
+    ArrayList<View> unmatched = new ArrayList<View>(oldCount);
+    for(int i = 0; i < oldCount; i++) {
+      View child = getChildAt(i);
+      ViewGroup.LayoutParams params = child.getLayoutParams();
+      if(isPlaceholder(child) || !(params instanceof LayoutParams)) {
+        unmatched.add(child);
+        continue;
+      }
+      View duplicate = oldChildrenById.get(((LayoutParams) params).itemId);
+      if(duplicate != null) {
+        unmatched.add(duplicate);
+      }
+      oldChildrenById.put(((LayoutParams) params).itemId, child);
+    }
+    detachAllViewsFromParent();
+
+    final int count = newAdapter.getCount();
+    View[] matched = new View[count];
+    for(int i = 0; i < count; i++) {
+      long id = newAdapter.getItemId(i);
+      View child = oldChildrenById.get(id);
+      if((child != null) && (viewTypeOf(child) == newAdapter.getItemViewType(i))) {
+        matched[i] = child;
+        oldChildrenById.remove(id);
+      }
+    }
+    for(int i = 0; i < oldChildrenById.size(); i++) {
+      unmatched.add(oldChildrenById.valueAt(i));
+    }
+
+    for(int i = 0; i < count; i++) {
+      // matched children first, then unmatched old children, then the pool. Old children are
+      // only detached, so they have to be attached or removed as such.
+      View convertView = matched[i];
+      if(convertView == null) {
+        convertView = takeUnmatched(unmatched, newAdapter.getItemViewType(i));
+      }
+      boolean oldChild = (convertView != null);
+      if(!oldChild && (viewPool != null)) {
+        convertView = viewPool.get(newAdapter.getItemViewType(i));
+      }
+      View view = obtainView(i, convertView);
+      if(oldChild && (view == convertView)) {
+        attachViewToParent(view, i, view.getLayoutParams());
+        continue;
+      }
+      if(oldChild) {
+        removeDetachedView(convertView, false);
+        recycleView(convertView);
+      }
+      addView(view, i);
+    }
+
+    // everything not reused by now is left over
+    for(View leftover : unmatched) {
+      removeDetachedView(leftover, false);
+      recycleView(leftover);
+    }
+
+    childSizesValid = false;
+    populationCursor = 0;
+    newAdapter.registerDataSetObserver(getObserver());
+    requestLayout();
+    invalidate();
+  }
+
+  private static View takeUnmatched(ArrayList<View> unmatched, int viewType) {
+    for(int i = unmatched.size() - 1; i >= 0; i--) {
+      View child = unmatched.get(i);
+      if(!isPlaceholder(child) && (viewTypeOf(child) == viewType)) {
+        return unmatched.remove(i);
+      }
+    }
+    return null;
+  }
+
+  private static int viewTypeOf(View child) {
+    ViewGroup.LayoutParams params = child.getLayoutParams();
+    return (params instanceof LayoutParams) ? ((LayoutParams) params).viewType : 0;
+  }
+
+  /**
+   * Populates the view with the items of the adapter provided through the <code>setAdapter</code>
+   * method.
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public void populateFromAdapter() {
+    int count = adapter.getCount();
+    int immediateCount = count;
+    int first = 0;
+    if(progressivePopulation && (count > 0)) {
+      bindPosition(0);
+      immediateCount = estimateVisibleItems(getChildAt(0));
+      first = 1;
+    }
+    for(int i = first; i < count; i++) {
+      if((i >= immediateCount) && ((getChildAt(i) == null) || isPlaceholder(getChildAt(i)))) {
+        if(getChildAt(i) == null) {
+          addPlaceholder(i);
+        }
+        continue;
+      }
+      bindPosition(i);
+    }
+    // children left over from a previous, larger data set
+    for(int i = getChildCount() - 1; i >= count; i--) {
+      View child = getChildAt(i);
+      removeViewAt(i);
+      recycleView(child);
+    }
+    if(immediateCount < count) {
+      populationCursor = immediateCount;
+      schedulePopulation();
+    }
+  }
+
+  /**
+   * Binds the given adapter position. An existing child at that index is handed to the adapter
+   * for reuse, unless it is a placeholder. Should the adapter create a new view instead (e.g. due
+   * to incompatibilities between View-objects), the old child is replaced.
+   *
+   * @param position The adapter position.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void bindPosition(int position) {
+    View child = getChildAt(position);
+    if(isPlaceholder(child)) {
+      removeViewAt(position);
+      child = null;
+    }
+    View view = child;
+    if((view == null) && (viewPool != null)) {
+      view = viewPool.get(adapter.getItemViewType(position));
+    }
+    view = obtainView(position, view);
+    if((child != null) && (view != child)) {
+      removeViewAt(position);
+      recycleView(child);
+    }
+    addItemView(view, position);
+  }
+
+  /**
+   * Estimates how many items are visible in the first frame, based on the size of the given
+   * item and the size of this layout, or the size of the display if this layout doesn't have a
+   * size, yet.
+   *
+   * @param sample The first item.
+   *
+   * @return The number of visible items, at least {@code 1}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private int estimateVisibleItems(View sample) {
+    int width = getWidth();
+    int height = getHeight();
+    if((width == 0) || (height == 0)) {
+      width = getResources().getDisplayMetrics().widthPixels;
+      height = getResources().getDisplayMetrics().heightPixels;
+    }
+    sample.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.AT_MOST),
+        MeasureSpec.makeMeasureSpec(height, MeasureSpec.AT_MOST));
+    return DashboardGrid.pageCapacity(width, height, sample.getMeasuredWidth(),
+        sample.getMeasuredHeight(), desiredCols, desiredRows);
+  }
+
+  private void addPlaceholder(int position) {
+    LayoutParams lp = generateDefaultLayoutParams();
+    lp.viewType = adapter.getItemViewType(position);
+    lp.header = (lp.viewType == DashboardAdapter.ITEM_VIEW_TYPE_HEADER);
+    Placeholder placeholder = new Placeholder(getContext());
+    placeholder.setLayoutParams(lp);
+    addView(placeholder, position);
+  }
+
+  static boolean isPlaceholder(View child) {
+    return child instanceof Placeholder;
+  }
+
+  /**
+   * Replaces placeholders by their items, until the time budget for the current frame is used
+   * up.
+   *
+   * @return {@code true} if there may be placeholders left, {@code false} otherwise.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private boolean bindPlaceholders() {
+    if(adapter == null) {
+      return false;
+    }
+    long deadline = System.nanoTime() + populationBudgetNanos;
+    int count = Math.min(getChildCount(), adapter.getCount());
+    for(; populationCursor < count; populationCursor++) {
+      if(isPlaceholder(getChildAt(populationCursor))) {
+        bindPosition(populationCursor);
+        if(System.nanoTime() >= deadline) {
+          populationCursor++;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void schedulePopulation() {
+    if(!populationScheduled) {
+      populationScheduled = true;
+      ViewCompat.postOnAnimation(this, populationSlice);
+    }
+  }
+
+  /**
+   * Sets whether the layout is populated progressively. If it is, only the items visible in the
+   * first frame are bound by {@link #populateFromAdapter()}, while the remaining positions are
+   * held by invisible placeholders. The placeholders are replaced by their items on the following
+   * frames, spending at most the population budget per frame (see
+   * {@link #setPopulationBudget(int)}).
+   *
+   * @param progressivePopulation
+   *     {@code true} to populate progressively, {@code false} to bind all items at once. Default
+   *     is {@code false}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setProgressivePopulation(boolean progressivePopulation) {
+    this.progressivePopulation = progressivePopulation;
+  }
+
+  /**
+   * Returns whether the layout is populated progressively.
+   *
+   * @return {@code true} if the layout is populated progressively, {@code false} otherwise.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public boolean isProgressivePopulation() {
+    return progressivePopulation;
+  }
+
+  /**
+   * Sets the time per frame that may be spent on binding items during progressive population. At
+   * least one item is bound per frame, regardless of the budget.
+   *
+   * @param millis
+   *     The budget in milliseconds. Default is 4.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setPopulationBudget(int millis) {
+    populationBudgetNanos = Math.max(0, millis) * 1000000L;
+  }
+
+  /**
+   * Called by the {@link DashboardDataSetObserver} when a single item has been inserted into the
+   * adapter. Only the view for the new position is bound, taking it from the view pool if
+   * possible, all other children stay untouched.
+   *
+   * @param position The adapter position of the inserted item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void onItemInserted(int position) {
+    finishDrag(false);
+    populationCursor = 0;
+    childSizeTreeValid = false;
+    View convertView = null;
+    if(viewPool != null) {
+      convertView = viewPool.get(adapter.getItemViewType(position));
+    }
+    addItemView(obtainView(position, convertView), position);
+  }
+
+  /**
+   * Called by the {@link DashboardDataSetObserver} when a single item has been removed from the
+   * adapter.
+   *
+   * @param position The former adapter position of the removed item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void onItemRemoved(int position) {
+    finishDrag(false);
+    populationCursor = 0;
+    childSizeTreeValid = false;
+    if(position < getChildCount()) {
+      View child = getChildAt(position);
+      removeViewAt(position);
+      recycleView(child);
+    }
+  }
+
+  /**
+   * Called by the {@link DashboardDataSetObserver} when a single item has been moved within the
+   * adapter. The existing view is moved to its new index without being rebound, and the children
+   * are re-arranged in a single layout pass.
+   *
+   * @param fromPosition The former adapter position of the item.
+   * @param toPosition The new adapter position of the item.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void onItemMoved(int fromPosition, int toPosition) {
+    finishDrag(false);
+    if((fromPosition == toPosition) || (fromPosition >= getChildCount())) {
+      return;
+    }
+    populationCursor = 0;
+    childSizeTreeValid = false;
+    View child = getChildAt(fromPosition);
+    detachViewFromParent(fromPosition);
+    attachViewToParent(child, Math.min(toPosition, getChildCount()), child.getLayoutParams());
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * Called by the {@link DashboardDataSetObserver} when the data of a range of items has changed.
+   * The existing views are handed to the adapter for rebinding.
+   *
+   * @param positionStart The adapter position of the first changed item.
+   * @param itemCount The number of changed items.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void onItemRangeChanged(int positionStart, int itemCount) {
+    int end = Math.min(positionStart + itemCount, getChildCount());
+    for(int i = positionStart; i < end; i++) {
+      View child = getChildAt(i);
+      if(isPlaceholder(child)) {
+        // bound with its latest data later on
+        continue;
+      }
+      View view = obtainView(i, child);
+      if(view != child) {
+        removeViewAt(i);
+        recycleView(child);
+        addItemView(view, i);
+      }
+    }
+  }
+
+  /**
+   * Retrieves the view for the given adapter position from the adapter, and flags it as header if
+   * the adapter reports it as such.
+   *
+   * @param position The adapter position.
+   * @param convertView The view to be reused, if possible. May be {@code null}.
+   *
+   * @return The view for the given position.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private View obtainView(int position, View convertView) {
+    View view = adapter.getView(position, convertView, this);
+    ViewGroup.LayoutParams params = view.getLayoutParams();
+    LayoutParams lp;
+    if(params == null) {
+      lp = generateDefaultLayoutParams();
+    } else if(!checkLayoutParams(params)) {
+      lp = generateLayoutParams(params);
+    } else {
+      lp = (LayoutParams) params;
+    }
+    lp.viewType = adapter.getItemViewType(position);
+    lp.itemId = adapter.getItemId(position);
+    lp.naturalWidth = -1;
+    lp.naturalHeight = -1;
+    lp.header = (lp.viewType == DashboardAdapter.ITEM_VIEW_TYPE_HEADER);
+    view.setLayoutParams(lp);
+    return view;
+  }
+
+  /**
+   * Adds the given item view at the given index, unless it is already a child of this layout.
+   *
+   * @param view The view to be added.
+   * @param index The index at which the view should be added, or {@code -1} to append it.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void addItemView(View view, int index) {
+    if(view.getParent() == null) {
+      addView(view, index);
+    }
+  }
+
+  /**
+   * Sets the pool that views are returned to when they are removed from this layout, and taken
+   * from when new views are needed. If no pool is set, removed views are simply discarded.
+   * <p/>
+   * Several layouts showing the same kind of items may share a single pool.
+   *
+   * @param viewPool
+   *     The pool, or {@code null} for none.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setViewPool(DashboardViewPool viewPool) {
+    this.viewPool = viewPool;
+  }
+
+  /**
+   * Returns the pool used for recycling the views of this layout.
+   *
+   * @return The pool, or {@code null} if none is set.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public DashboardViewPool getViewPool() {
+    return viewPool;
+  }
+
+  /**
+   * Removes all children, returning them to the view pool, if one is set.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void recycleAllViews() {
+    finishDrag(false);
+    if(viewPool != null) {
+      for(int i = getChildCount() - 1; i >= 0; i--) {
+        recycleView(getChildAt(i));
+      }
+    }
+    removeAllViews();
+  }
+
+  /**
+   * Detaches this layout from its current adapter, so that the adapter's notifications no longer
+   * reach it, and removes all children, returning them to the view pool, if one is set.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void releaseAdapter() {
+    if(adapter != null) {
+      adapter.unregisterDataSetObserver(getObserver());
+      adapter = null;
+    }
+    recycleAllViews();
+  }
+
+  /**
+   * Returns a removed child to the view pool, if one is set.
+   *
+   * @param child
+   *     The removed child.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  private void recycleView(View child) {
+    if((viewPool == null) || isPlaceholder(child)) {
+      return;
+    }
+    ViewGroup.LayoutParams lp = child.getLayoutParams();
+    int viewType = (lp instanceof LayoutParams) ? ((LayoutParams) lp).viewType : 0;
+    viewPool.put(viewType, child);
+  }
+
+  /**
+   * Returns the number of columns desired
+   *
+   * @return the number of desired columns
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public int getDesiredCols() {
+    return desiredCols;
+  }
+
+  /**
+   * Sets the number of columns desired. If possible, the arrangement-algorithm will attempt to give
+   * this value preference over all other possibilities to arrange the items.
+   * <p/>
+   * If both, desired columns and desired rows are set, the algorithm will attempt to comply to
+   * both, if possible.
+   *
+   * @param desiredCols
+   *     the number of columns desired
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public void setDesiredCols(int desiredCols) {
+    if(desiredCols != this.desiredCols) {
+      this.desiredCols = desiredCols;
+      requestLayout();
+    }
+    if(traceRecorder != null) {
+      traceRecorder.recordDesiredCols(desiredCols);
+    }
+  }
+
+  /**
+   * Returns the number of rows desired
+   *
+   * @return the number of desired rows
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public int getDesiredRows() {
+    return desiredRows;
+  }
+
+  /**
+   * Sets the number of rows desired. If possible, the arrangement-algorithm will attempt to give
+   * this value preference over all other possibilities to arrange the items.
+   * <p/>
+   * If both, desired rows and desired columns are set, the algorithm will attempt to comply to
+   * both, if possible.
+   *
+   * @param desiredRows
+   *     the number of rows desired
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  public void setDesiredRows(int desiredRows) {
+    if(desiredRows != this.desiredRows) {
+      this.desiredRows = desiredRows;
+      requestLayout();
+    }
+    if(traceRecorder != null) {
+      traceRecorder.recordDesiredRows(desiredRows);
+    }
+  }
+
+  /**
+   * Sets the recorder notified about calls to the setters of this layout and its size changes.
+   * Used by {@link DashboardTraceRecorder#attach(DashboardLayout, DashboardAdapter)}.
+   *
+   * @param traceRecorder
+   *     The recorder, or {@code null}.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  void setTraceRecorder(DashboardTraceRecorder traceRecorder) {
+    this.traceRecorder = traceRecorder;
+  }
+
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    if(traceRecorder != null) {
+      traceRecorder.recordSize(w, h);
+    }
+  }
+
+  /**
+   * Each DashboardLayout-instance holds its own, single instance of the DashboarDataSetObserver.
+   * This method takes care of returning it, if it already exists, or instantiates it, if it does
+   * not exist, yet. Therefore, the observer-object must never be used directly, only via this
+   * method.
+   *
+   * @return the observer-instance of this DashboardLayout-object.
+   *
+   * @since Class 1.0
+   * @since API 1.0.0
+   */
+  private DashboardDataSetObserver getObserver() {
+    if(observer == null) {
+      observer = new DashboardDataSetObserver(this);
+    }
+    return observer;
+  }
+
+  @Override
+  protected LayoutParams generateDefaultLayoutParams() {
+    return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+  }
+
+  @Override
+  public LayoutParams generateLayoutParams(AttributeSet attrs) {
+    return new LayoutParams(getContext(), attrs);
+  }
+
+  @Override
+  protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+    return new LayoutParams(p);
+  }
+
+  @Override
+  protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+    return p instanceof LayoutParams;
+  }
+
+  /**
+   * Invisible view holding the position of an item that isn't bound, yet. Measures to nothing, so
+   * it doesn't influence the size of the cells.
+   */
+  private static final class Placeholder extends View {
+    Placeholder(Context context) {
+      super(context);
+      setVisibility(View.INVISIBLE);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+      setMeasuredDimension(0, 0);
+    }
+  }
+
+  /**
+   * Per-child layout information for children of the {@link DashboardLayout}.
+   *
+   * @author Volkmar Seifert
+   * @version 1.0
+   * @since API 1.1.0
+   */
+  public static class LayoutParams extends ViewGroup.LayoutParams {
+
+    /**
+     * {@code true} if the child is a header that spans the full width of the layout instead of
+     * being arranged in the grid.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public boolean header = false;
+
+    /**
+     * The view type the adapter reported for the child, used for returning it to the matching
+     * scrap list of a {@link DashboardViewPool}.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public int viewType = 0;
+
+    /**
+     * The grid cell the child was placed in by the last layout pass ({@code row * cols + col}),
+     * or {@code -1} if it isn't part of the grid.
+     */
+    int cell = -1;
+
+    /**
+     * The ID the adapter reported for the child, used for looking up its {@link DashboardBadge}.
+     */
+    long itemId = -1;
+
+    /**
+     * The size the child measured itself to before being sized to its cell, or {@code -1} if it
+     * has to be measured again.
+     */
+    int naturalWidth = -1;
+    int naturalHeight = -1;
+
+    /**
+     * Creates a new set of layout parameters from the given attributes.
+     *
+     * @param c The {@code Context} object
+     * @param attrs The attributes to be parsed.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public LayoutParams(Context c, AttributeSet attrs) {
+      super(c, attrs);
+    }
+
+    /**
+     * Creates a new set of layout parameters with the given width and height.
+     *
+     * @param width The width, either {@code WRAP_CONTENT}, {@code MATCH_PARENT} or a fixed size.
+     * @param height The height, either {@code WRAP_CONTENT}, {@code MATCH_PARENT} or a fixed size.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public LayoutParams(int width, int height) {
+      super(width, height);
+    }
+
+    /**
+     * Creates a new set of layout parameters, copying width and height from the given ones.
+     *
+     * @param source The layout parameters to copy from.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public LayoutParams(ViewGroup.LayoutParams source) {
+      super(source);
     }
-    return observer;
   }
 }
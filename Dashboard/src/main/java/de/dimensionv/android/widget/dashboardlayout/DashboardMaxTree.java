@@ -0,0 +1,133 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Segment tree tracking the maximum natural width and height of the
+// DashboardLayout's children.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.Arrays;
+
+/**
+ * <p>Tracks the maximum width and height of a fixed number of entries, as used by the
+ * {@link DashboardLayout} for the natural sizes of its children.</p>
+ * <p>The entries are kept in the leaves of an array-based segment tree, with each inner node
+ * holding the maxima of its two children. Changing a single entry only updates the nodes on its
+ * path to the root, so the maxima are up to date after {@code O(log n)} steps, instead of
+ * comparing all entries again.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+final class DashboardMaxTree {
+
+  private int[] widths = new int[0];
+  private int[] heights = new int[0];
+  private int size = 0;
+
+  /**
+   * Clears the tree and resizes it to the given number of entries, all of which are {@code 0}.
+   * The entries are then filled in using {@link #put(int, int, int)}, followed by a single call to
+   * {@link #build()}.
+   */
+  void reset(int size) {
+    this.size = size;
+    if(widths.length < (2 * size)) {
+      widths = new int[2 * size];
+      heights = new int[2 * size];
+    } else {
+      Arrays.fill(widths, 0, 2 * size, 0);
+      Arrays.fill(heights, 0, 2 * size, 0);
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Sets an entry without updating the maxima. Only valid between {@link #reset(int)} and
+   * {@link #build()}.
+   */
+  void put(int index, int width, int height) {
+    widths[size + index] = width;
+    heights[size + index] = height;
+  }
+
+  /**
+   * Computes the maxima of all inner nodes from the entries set by {@link #put(int, int, int)}.
+   */
+  void build() {
+    for(int i = size - 1; i > 0; i--) {
+      widths[i] = Math.max(widths[2 * i], widths[(2 * i) + 1]);
+      heights[i] = Math.max(heights[2 * i], heights[(2 * i) + 1]);
+    }
+  }
+
+  /**
+   * Sets an entry and updates the maxima on its path to the root.
+   */
+  void set(int index, int width, int height) {
+    int i = size + index;
+    if((widths[i] == width) && (heights[i] == height)) {
+      return;
+    }
+    widths[i] = width;
+    heights[i] = height;
+    while(i > 1) {
+      i >>= 1;
+      widths[i] = Math.max(widths[2 * i], widths[(2 * i) + 1]);
+      heights[i] = Math.max(heights[2 * i], heights[(2 * i) + 1]);
+    }
+  }
+
+  /**
+   * Returns the maximum width of all entries, or {@code 0} if there are none.
+   */
+  int getMaxWidth() {
+    return (size == 0) ? 0 : widths[1];
+  }
+
+  /**
+   * Returns the maximum height of all entries, or {@code 0} if there are none.
+   */
+  int getMaxHeight() {
+    return (size == 0) ? 0 : heights[1];
+  }
+}
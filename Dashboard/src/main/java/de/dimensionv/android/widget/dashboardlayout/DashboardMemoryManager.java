@@ -0,0 +1,439 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Central memory budget trimming the library's pools and caches in tiers,
+// also in response to onTrimMemory().
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.View;
+import android.widget.TextView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * <p>Central memory budget of the library.</p>
+ * <p>The pools and caches of the library implement {@link DashboardMemoryConsumer}, and are
+ * registered with the manager in one of three tiers, which are trimmed in a defined order: text
+ * layouts ({@link #TIER_TEXT_LAYOUTS}) are cheapest to rebuild and are trimmed first, followed by
+ * icons ({@link #TIER_ICONS}), and finally views ({@link #TIER_VIEWS}).</p>
+ * <p>The manager reacts to the trim levels of {@code ComponentCallbacks2.onTrimMemory()}: the
+ * higher the level, the more tiers are trimmed, starting with halving the text layouts at
+ * {@code TRIM_MEMORY_RUNNING_MODERATE}, up to releasing everything once the UI is hidden. On
+ * Android 4.0 and later, {@link #attach(Context)} registers the manager for these callbacks. On
+ * older versions, only {@code onLowMemory()} is available, and has to be forwarded through
+ * {@link #onLowMemory()} by the application.</p>
+ * <p>Independent of memory pressure, {@link #enforceBudget()} trims the tiers in the same order
+ * until the total size fits the configured budget.</p>
+ * <p>Consumers are only referenced weakly, so registering them doesn't keep them alive. The manager
+ * is meant to be used from the main thread only.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardMemoryManager {
+
+  /**
+   * The tier of text layout caches, like the {@link DashboardTextFitter}. Trimmed first.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int TIER_TEXT_LAYOUTS = 0;
+
+  /**
+   * The tier of icon caches, like the {@link DashboardPrefetcher} and the
+   * {@link DashboardIconRegistry}. Trimmed second.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int TIER_ICONS = 1;
+
+  /**
+   * The tier of view pools, like the {@link DashboardViewPool} and the cached levels of the
+   * {@link DashboardNavigator}. Trimmed last.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int TIER_VIEWS = 2;
+
+  private static final int TIER_COUNT = 3;
+
+  /**
+   * The estimated number of bytes of a view itself, not counting its drawables.
+   */
+  private static final int VIEW_BYTES = 1024;
+
+  private final ArrayList<ArrayList<WeakReference<DashboardMemoryConsumer>>> tiers =
+      new ArrayList<ArrayList<WeakReference<DashboardMemoryConsumer>>>(TIER_COUNT);
+  private long budget;
+  private Object callbacks = null;
+  private Context attachedContext = null;
+
+  /**
+   * Creates a {@code DashboardMemoryManager}.
+   *
+   * @param budget The number of bytes the registered consumers may hold in total, see
+   *               {@link #enforceBudget()}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardMemoryManager(long budget) {
+    this.budget = budget;
+    for(int i = 0; i < TIER_COUNT; i++) {
+      tiers.add(new ArrayList<WeakReference<DashboardMemoryConsumer>>());
+    }
+  }
+
+  /**
+   * Registers a consumer in the given tier.
+   *
+   * @param consumer The consumer.
+   * @param tier One of {@link #TIER_TEXT_LAYOUTS}, {@link #TIER_ICONS} and {@link #TIER_VIEWS}.
+   *
+   * @throws IllegalArgumentException If the tier is invalid.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void register(DashboardMemoryConsumer consumer, int tier) {
+    if((tier < 0) || (tier >= TIER_COUNT)) {
+      throw new IllegalArgumentException("Invalid tier " + tier);
+    }
+    unregister(consumer);
+    tiers.get(tier).add(new WeakReference<DashboardMemoryConsumer>(consumer));
+  }
+
+  /**
+   * Unregisters a consumer.
+   *
+   * @param consumer The consumer.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void unregister(DashboardMemoryConsumer consumer) {
+    for(ArrayList<WeakReference<DashboardMemoryConsumer>> tier : tiers) {
+      for(int i = tier.size() - 1; i >= 0; i--) {
+        DashboardMemoryConsumer registered = tier.get(i).get();
+        if((registered == null) || (registered == consumer)) {
+          tier.remove(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes held by all registered consumers.
+   *
+   * @return The number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getSize() {
+    long size = 0;
+    for(int tier = 0; tier < TIER_COUNT; tier++) {
+      size += getSize(tier);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of bytes held by the consumers of the given tier.
+   *
+   * @param tier The tier.
+   *
+   * @return The number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getSize(int tier) {
+    long size = 0;
+    for(DashboardMemoryConsumer consumer : consumers(tier)) {
+      size += consumer.getMemorySize();
+    }
+    return size;
+  }
+
+  /**
+   * Sets the number of bytes the registered consumers may hold in total.
+   *
+   * @param budget The number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Returns the number of bytes the registered consumers may hold in total.
+   *
+   * @return The number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Trims the consumers tier by tier, until the total size fits the budget.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void enforceBudget() {
+    long excess = getSize() - budget;
+    for(int tier = 0; (tier < TIER_COUNT) && (excess > 0); tier++) {
+      for(DashboardMemoryConsumer consumer : consumers(tier)) {
+        if(excess <= 0) {
+          break;
+        }
+        long size = consumer.getMemorySize();
+        consumer.trimMemoryTo(Math.max(0, size - excess));
+        excess -= size - consumer.getMemorySize();
+      }
+    }
+  }
+
+  /**
+   * Trims the tiers according to the given trim level, as passed to
+   * {@code ComponentCallbacks2.onTrimMemory()}.
+   *
+   * @param level The trim level.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void trimMemory(int level) {
+    for(int tier = 0; tier < TIER_COUNT; tier++) {
+      int keepPercent = getKeepPercent(tier, level);
+      if(keepPercent >= 100) {
+        continue;
+      }
+      for(DashboardMemoryConsumer consumer : consumers(tier)) {
+        consumer.trimMemoryTo((consumer.getMemorySize() * keepPercent) / 100);
+      }
+    }
+  }
+
+  /**
+   * Releases everything that can be released. To be called from {@code onLowMemory()} on versions
+   * of Android before 4.0.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void onLowMemory() {
+    trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+  }
+
+  /**
+   * Registers the manager for the memory callbacks of the application of the given context.
+   * Requires Android 4.0 or later, does nothing on older versions.
+   *
+   * @param context The context.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void attach(Context context) {
+    if((attachedContext != null) || (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH)) {
+      return;
+    }
+    attachedContext = context.getApplicationContext();
+    callbacks = TrimCallbacks.register(attachedContext, this);
+  }
+
+  /**
+   * Unregisters the manager from the memory callbacks registered through {@link #attach(Context)}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void detach() {
+    if(attachedContext == null) {
+      return;
+    }
+    TrimCallbacks.unregister(attachedContext, callbacks);
+    attachedContext = null;
+    callbacks = null;
+  }
+
+  /**
+   * Estimates the number of bytes used by the given icon.
+   *
+   * @param icon The icon.
+   *
+   * @return The estimated number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static int estimateBytes(Drawable icon) {
+    if(icon instanceof BitmapDrawable) {
+      Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+      if(bitmap != null) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+      }
+    }
+    // assume ARGB_8888 for anything else that has a size
+    return Math.max(0, icon.getIntrinsicWidth()) * Math.max(0, icon.getIntrinsicHeight()) * 4;
+  }
+
+  /**
+   * Estimates the number of bytes used by the given view, including the compound drawables of
+   * {@code TextView}s.
+   *
+   * @param view The view.
+   *
+   * @return The estimated number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static int estimateBytes(View view) {
+    int bytes = VIEW_BYTES;
+    if(view instanceof TextView) {
+      Drawable[] drawables = ((TextView) view).getCompoundDrawables();
+      if(drawables != null) {
+        for(Drawable drawable : drawables) {
+          if(drawable != null) {
+            bytes += estimateBytes(drawable);
+          }
+        }
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the share of the tier's size to keep at the given trim level, in percent.
+   */
+  private static int getKeepPercent(int tier, int level) {
+    if(level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      return 0;
+    }
+    int trimmedTiers;
+    if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimmedTiers = 3;
+    } else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      trimmedTiers = 2;
+    } else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+      trimmedTiers = 1;
+    } else {
+      return 100;
+    }
+    // the last tier affected is halved, all tiers before it are released
+    if(tier < (trimmedTiers - 1)) {
+      return 0;
+    }
+    return (tier == (trimmedTiers - 1)) ? 50 : 100;
+  }
+
+  private ArrayList<DashboardMemoryConsumer> consumers(int tier) {
+    ArrayList<WeakReference<DashboardMemoryConsumer>> references = tiers.get(tier);
+    ArrayList<DashboardMemoryConsumer> consumers =
+        new ArrayList<DashboardMemoryConsumer>(references.size());
+    for(int i = references.size() - 1; i >= 0; i--) {
+      DashboardMemoryConsumer consumer = references.get(i).get();
+      if(consumer == null) {
+        references.remove(i);
+      } else {
+        consumers.add(0, consumer);
+      }
+    }
+    return consumers;
+  }
+
+  /**
+   * Holds the references to {@code ComponentCallbacks2}, so they are only resolved on versions of
+   * Android that have it.
+   */
+  private static final class TrimCallbacks implements ComponentCallbacks2 {
+    private final WeakReference<DashboardMemoryManager> manager;
+
+    private TrimCallbacks(DashboardMemoryManager manager) {
+      this.manager = new WeakReference<DashboardMemoryManager>(manager);
+    }
+
+    static Object register(Context context, DashboardMemoryManager manager) {
+      TrimCallbacks callbacks = new TrimCallbacks(manager);
+      context.registerComponentCallbacks(callbacks);
+      return callbacks;
+    }
+
+    static void unregister(Context context, Object callbacks) {
+      context.unregisterComponentCallbacks((TrimCallbacks) callbacks);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+      DashboardMemoryManager target = manager.get();
+      if(target != null) {
+        target.trimMemory(level);
+      }
+    }
+
+    @Override
+    public void onLowMemory() {
+      DashboardMemoryManager target = manager.get();
+      if(target != null) {
+        target.onLowMemory();
+      }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+  }
+}
@@ -0,0 +1,473 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Drives a DashboardLayout through a tree of lazily created, cached
+// sub-dashboards.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.ComponentCallbacks2;
+import android.support.v4.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.View.OnClickListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Drives a {@link DashboardLayout} through a tree of nested dashboards, e.g. for drill-down
+ * menus.</p>
+ * <p>Clicking an item that has a sub-dashboard opens it in the same layout, {@link #back()} returns
+ * to the parent level. Whether an item has a sub-dashboard is decided by a
+ * {@link SubDashboardFactory}. The default factory, {@link #CONTAINER_FACTORY}, opens
+ * {@link ContainerDashboardItem}s whose content is either a {@code List} of {@link DashboardItem}s,
+ * or a {@link SubDashboardContent} creating those items on demand.</p>
+ * <p>A sub-dashboard's adapter is only created when it is opened for the first time, and its views
+ * are only created when it is shown. Each level has its own {@link DashboardViewPool}, so leaving a
+ * level keeps its views for the next visit. The most recently visited levels are kept in a bounded
+ * LRU-cache, keyed by the ID of the item they were opened from. The IDs of items opening
+ * sub-dashboards therefore have to be unique across the whole tree. The shown level is taken out
+ * of the cache while it is shown, so it is never evicted. The cache can be released under memory
+ * pressure using {@link #trimMemory(int)}.</p>
+ * <p>If a {@link DashboardPrefetcher} is set, the items of the sub-dashboards that can be opened
+ * from the shown level without creating any items are handed to it whenever a level is shown.</p>
+ * <p>As a {@link DashboardMemoryConsumer}, the navigator can be trimmed by a
+ * {@link DashboardMemoryManager}, usually in the tier {@link DashboardMemoryManager#TIER_VIEWS}.
+ * Its size is the size of the view pools of all levels that aren't shown.</p>
+ * <p>Clicks on items without a sub-dashboard are forwarded to the {@code OnClickListener} given to
+ * the constructor, unless the item has a {@link DashboardItem.OnClickListener} of its own.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardNavigator implements DashboardMemoryConsumer {
+
+  /**
+   * The default number of sub-dashboards kept in the cache.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_CACHE_SIZE = 4;
+
+  /**
+   * Creates the adapters of sub-dashboards.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface SubDashboardFactory {
+
+    /**
+     * Creates the adapter for the sub-dashboard of the given item.
+     *
+     * @param item The item that has been clicked.
+     * @param inflater The inflater to be used by the adapter.
+     * @param onClickListener The listener to be used by the adapter.
+     *
+     * @return The adapter, or {@code null} if the item does not have a sub-dashboard.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    DashboardAdapter<? extends DashboardItem> createSubDashboard(DashboardItem item,
+                                                                 LayoutInflater inflater,
+                                                                 OnClickListener onClickListener);
+  }
+
+  /**
+   * Content of a {@link ContainerDashboardItem} creating the items of its sub-dashboard only when
+   * the sub-dashboard is opened.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface SubDashboardContent {
+
+    /**
+     * Creates the items of the sub-dashboard.
+     *
+     * @return The items.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    List<? extends DashboardItem> createItems();
+  }
+
+  /**
+   * Factory opening {@link ContainerDashboardItem}s whose content is a {@code List} of
+   * {@link DashboardItem}s or a {@link SubDashboardContent}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final SubDashboardFactory CONTAINER_FACTORY = new SubDashboardFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public DashboardAdapter<? extends DashboardItem> createSubDashboard(DashboardItem item,
+                                                                        LayoutInflater inflater,
+                                                                        OnClickListener onClickListener) {
+      if(!(item instanceof ContainerDashboardItem)) {
+        return null;
+      }
+      Object content = ((ContainerDashboardItem<?>) item).getContent();
+      if(content instanceof SubDashboardContent) {
+        content = ((SubDashboardContent) content).createItems();
+      }
+      if(!(content instanceof List)) {
+        return null;
+      }
+      return new DashboardAdapter<DashboardItem>((List<DashboardItem>) content, inflater,
+          onClickListener);
+    }
+  };
+
+  private final DashboardLayout layout;
+  private final LayoutInflater inflater;
+  private final OnClickListener onClickListener;
+  private final SubDashboardFactory factory;
+  private final LevelCache cache;
+  private final ArrayList<Level> backStack = new ArrayList<Level>();
+  private Level current;
+  private DashboardPrefetcher prefetcher = null;
+
+  private final OnClickListener clickHandler = new OnClickListener() {
+    @Override
+    public void onClick(View v) {
+      int position = layout.indexOfChild(v);
+      if(position < 0) {
+        return;
+      }
+      DashboardItem item = (DashboardItem) current.adapter.getItem(position);
+      if(!open(item) && (onClickListener != null)) {
+        onClickListener.onClick(v);
+      }
+    }
+  };
+
+  /**
+   * Creates a {@code DashboardNavigator} using the {@link #CONTAINER_FACTORY} and the
+   * {@link #DEFAULT_CACHE_SIZE}, and shows the given root items in the layout.
+   *
+   * @param layout The layout showing the dashboards.
+   * @param rootItems The items of the top-level dashboard.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for clicks on items without a sub-dashboard.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardNavigator(DashboardLayout layout, List<? extends DashboardItem> rootItems,
+                            LayoutInflater inflater, OnClickListener onClickListener) {
+    this(layout, rootItems, inflater, onClickListener, CONTAINER_FACTORY, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a {@code DashboardNavigator}, and shows the given root items in the layout.
+   *
+   * @param layout The layout showing the dashboards.
+   * @param rootItems The items of the top-level dashboard.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for clicks on items without a sub-dashboard.
+   * @param factory The factory creating the adapters of the sub-dashboards.
+   * @param cacheSize The maximum number of sub-dashboards kept in the cache.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @SuppressWarnings("unchecked")
+  public DashboardNavigator(DashboardLayout layout, List<? extends DashboardItem> rootItems,
+                            LayoutInflater inflater, OnClickListener onClickListener,
+                            SubDashboardFactory factory, int cacheSize) {
+    this.layout = layout;
+    this.inflater = inflater;
+    this.onClickListener = onClickListener;
+    this.factory = factory;
+    this.cache = new LevelCache(Math.max(1, cacheSize));
+
+    DashboardAdapter<DashboardItem> rootAdapter = new DashboardAdapter<DashboardItem>(
+        (List<DashboardItem>) rootItems, inflater, clickHandler);
+    layout.releaseAdapter();
+    show(new Level(null, rootAdapter));
+  }
+
+  /**
+   * Opens the sub-dashboard of the given item, if it has one. A cached sub-dashboard is reused,
+   * otherwise its adapter is created through the factory.
+   *
+   * @param item The item whose sub-dashboard should be opened.
+   *
+   * @return {@code true} if the sub-dashboard has been opened, {@code false} if the item does not
+   *         have one.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean open(DashboardItem item) {
+    Long key = Long.valueOf(item.getID());
+    Level level = cache.remove(key);
+    if(level == null) {
+      DashboardAdapter<? extends DashboardItem> adapter = factory.createSubDashboard(item, inflater,
+          clickHandler);
+      if(adapter == null) {
+        return false;
+      }
+      level = new Level(key, adapter);
+    }
+    backStack.add(current);
+    show(level);
+    return true;
+  }
+
+  /**
+   * Returns to the parent of the currently shown dashboard.
+   *
+   * @return {@code true} if the parent has been shown, {@code false} if the top-level dashboard is
+   *         already shown.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean back() {
+    if(backStack.isEmpty()) {
+      return false;
+    }
+    show(backStack.remove(backStack.size() - 1));
+    return true;
+  }
+
+  /**
+   * Returns the depth of the currently shown dashboard.
+   *
+   * @return The depth, {@code 0} for the top-level dashboard.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getDepth() {
+    return backStack.size();
+  }
+
+  /**
+   * Returns the adapter of the currently shown dashboard.
+   *
+   * @return The adapter.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardAdapter<? extends DashboardItem> getCurrentAdapter() {
+    return current.adapter;
+  }
+
+  /**
+   * <p>Releases cached sub-dashboards according to the given trim level, as passed to
+   * {@code ComponentCallbacks2.onTrimMemory()}.</p>
+   * <p>From {@code TRIM_MEMORY_RUNNING_CRITICAL} or {@code TRIM_MEMORY_MODERATE} on, the whole
+   * cache is released, see {@link #releaseCache()}. For lower levels, the cache is trimmed to half
+   * of its entries. The currently shown dashboard is never affected.</p>
+   *
+   * @param level The trim level.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void trimMemory(int level) {
+    if((level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE)
+        || (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)) {
+      releaseCache();
+    } else if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      cache.trimToSize(cache.size() / 2);
+    }
+  }
+
+  /**
+   * Releases all cached sub-dashboards and the pooled views of all levels on the back stack.
+   * Levels on the back stack keep their adapters, so {@link #back()} continues to work.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void releaseCache() {
+    cache.evictAll();
+    for(Level level : backStack) {
+      level.pool.clear();
+    }
+  }
+
+  /**
+   * Sets the prefetcher warming the items of the sub-dashboards reachable from the shown level.
+   *
+   * @param prefetcher The prefetcher, or {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setPrefetcher(DashboardPrefetcher prefetcher) {
+    if(this.prefetcher != null) {
+      this.prefetcher.cancel();
+    }
+    this.prefetcher = prefetcher;
+    prefetchChildren();
+  }
+
+  @Override
+  public long getMemorySize() {
+    long bytes = 0;
+    for(Level level : cache.snapshot().values()) {
+      if(!backStack.contains(level)) {
+        bytes += level.pool.getMemorySize();
+      }
+    }
+    for(Level level : backStack) {
+      bytes += level.pool.getMemorySize();
+    }
+    return bytes;
+  }
+
+  /**
+   * Evicts cached sub-dashboards, least recently visited first, and finally releases the pooled
+   * views of the levels on the back stack, until the remaining views fit the given number of
+   * bytes.
+   *
+   * @see DashboardMemoryConsumer#trimMemoryTo(long)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public void trimMemoryTo(long bytes) {
+    if(bytes <= 0) {
+      releaseCache();
+      return;
+    }
+    long size = getMemorySize();
+    // the snapshot is ordered from the least to the most recently visited level
+    for(Map.Entry<Long, Level> entry : cache.snapshot().entrySet()) {
+      if(size <= bytes) {
+        return;
+      }
+      Level level = entry.getValue();
+      size -= level.pool.getMemorySize();
+      cache.remove(entry.getKey());
+      level.pool.clear();
+    }
+    for(int i = 0; (i < backStack.size()) && (size > bytes); i++) {
+      DashboardViewPool pool = backStack.get(i).pool;
+      size -= pool.getMemorySize();
+      pool.clear();
+    }
+  }
+
+  private void show(Level level) {
+    Level previous = current;
+    if(level.key != null) {
+      // not evicted, so the pool is kept
+      cache.remove(level.key);
+    }
+    layout.releaseAdapter();
+    layout.setViewPool(level.pool);
+    layout.setAdapter(level.adapter);
+    current = level;
+    if((previous != null) && (previous.key != null)) {
+      cache.put(previous.key, previous);
+    }
+    prefetchChildren();
+  }
+
+  /**
+   * Hands the items of the sub-dashboards of the current level to the prefetcher, as far as they
+   * already exist. Sub-dashboards creating their items on demand are left alone.
+   */
+  private void prefetchChildren() {
+    if(prefetcher == null) {
+      return;
+    }
+    ArrayList<DashboardItem> items = new ArrayList<DashboardItem>();
+    DashboardAdapter<? extends DashboardItem> adapter = current.adapter;
+    int count = adapter.getCount();
+    for(int i = 0; i < count; i++) {
+      Object item = adapter.getItem(i);
+      if(!(item instanceof ContainerDashboardItem)) {
+        continue;
+      }
+      Object content = ((ContainerDashboardItem<?>) item).getContent();
+      if(content instanceof List) {
+        for(Object child : (List<?>) content) {
+          if(child instanceof DashboardItem) {
+            items.add((DashboardItem) child);
+          }
+        }
+      }
+    }
+    prefetcher.prefetch(items);
+  }
+
+  /**
+   * A single level of the tree: the adapter and the pool holding its views while it isn't shown,
+   * as well as the key of the level in the cache, which is {@code null} for the top-level.
+   */
+  private static final class Level {
+    final Long key;
+    final DashboardAdapter<? extends DashboardItem> adapter;
+    final DashboardViewPool pool = new DashboardViewPool();
+
+    Level(Long key, DashboardAdapter<? extends DashboardItem> adapter) {
+      this.key = key;
+      this.adapter = adapter;
+    }
+  }
+
+  /**
+   * LRU-cache of visited sub-dashboards, dropping the pooled views of evicted levels. Levels
+   * removed explicitly keep their views.
+   */
+  private static final class LevelCache extends LruCache<Long, Level> {
+    LevelCache(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, Long key, Level oldValue, Level newValue) {
+      if(evicted && (oldValue != newValue)) {
+        oldValue.pool.clear();
+      }
+    }
+  }
+}
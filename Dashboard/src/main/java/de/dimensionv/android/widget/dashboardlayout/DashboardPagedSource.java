@@ -0,0 +1,79 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Interface for data sources providing the contents of a PagedDashboardAdapter
+// page by page.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import java.util.List;
+
+/**
+ * <p>Interface for data sources that provide the contents of a {@link PagedDashboardAdapter} in
+ * pages, instead of all at once.</p>
+ * <p>{@link #loadPage(int, int)} is always called on a background thread, so implementations may
+ * safely query a database or any other kind of storage. {@link #getCount()} is called once when
+ * the adapter is created, and on a background thread whenever the adapter is refreshed. Neither
+ * method must touch any {@code View}s.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public interface DashboardPagedSource {
+
+  /**
+   * Returns the total number of items of this data source.
+   *
+   * @return The total number of items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getCount();
+
+  /**
+   * Loads a single page of contents.
+   *
+   * @param offset The position of the first item of the page.
+   * @param count The number of items of the page. The last page may return fewer items.
+   *
+   * @return The contents of the page, in adapter order. Must not be {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public List<? extends DashboardItemContent> loadPage(int offset, int count);
+}
@@ -0,0 +1,990 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Swipeable container splitting the items of a DashboardAdapter into
+// screen-sized pages of DashboardLayouts.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.Scroller;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Horizontally swipeable container splitting the items of a {@link DashboardAdapter} into
+ * screen-sized pages, each shown by its own {@link DashboardLayout}.</p>
+ * <p>The number of items per page is derived from the size of the pager and the size of a single
+ * item, using the same grid arithmetic as the {@code DashboardLayout}, so a page never has to
+ * shrink the spacing between its items to zero.</p>
+ * <p>Only the current page and its direct neighbours are bound at any time. The neighbours are
+ * bound, measured and laid out while the main thread is idle, and the views of pages scrolling
+ * away are returned to a {@link DashboardViewPool} shared by all pages. Swiping between pages
+ * therefore neither inflates nor measures any views.</p>
+ * <p>If a {@link DashboardPrefetcher} is set, the items of the pages next to the neighbours are
+ * handed to it whenever the current page changes.</p>
+ * <p>Headers reported by the adapter occupy a single cell in paged mode: the pages don't report
+ * them as {@link DashboardAdapter#ITEM_VIEW_TYPE_HEADER} to their layouts, so they are arranged
+ * in the grid like any other item, instead of spanning a row of their own. Hence, a page with
+ * headers holds exactly as many cells as the pagination accounted for.</p>
+ * <p>When the focus is moved beyond the left or right edge of the current page with the D-pad or
+ * the arrow keys, the pager jumps to the neighbouring page, and the focus continues in the same
+ * row there (see {@link #setFocusPageJump(boolean)}).</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardPager extends ViewGroup {
+
+  /**
+   * Listener notified when another page becomes the current page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface OnPageChangeListener {
+
+    /**
+     * Called when the given page becomes the current page.
+     *
+     * @param page The index of the new current page.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    void onPageSelected(int page);
+  }
+
+  private static final int SLOT_COUNT = 3;
+  private static final int SNAP_DURATION = 250;
+  // number of items measured for computing the number of items per page
+  private static final int SAMPLE_SIZE = 4;
+
+  // Scrap views are only produced by the three slots, so the pool never needs to hold more than
+  // the views of three pages, and doesn't need a limit of its own.
+  private final DashboardViewPool viewPool = new DashboardViewPool(Integer.MAX_VALUE);
+  private final DashboardLayout[] slots = new DashboardLayout[SLOT_COUNT];
+  private final int[] slotPages = new int[SLOT_COUNT];
+  private final boolean[] slotReady = new boolean[SLOT_COUNT];
+
+  private DashboardAdapter<? extends DashboardItem> adapter = null;
+  private SourceObserver observer = null;
+  private OnPageChangeListener onPageChangeListener = null;
+  private DashboardPrefetcher prefetcher = null;
+
+  private int desiredCols = 0;
+  private int desiredRows = 0;
+  private int pageWidth = 0;
+  private int pageHeight = 0;
+  private int pageCapacity = 0;
+  private int currentPage = 0;
+  private boolean paginationValid = false;
+  private boolean focusPageJump = true;
+
+  private Scroller scroller;
+  private VelocityTracker velocityTracker = null;
+  private int touchSlop;
+  private int minFlingVelocity;
+  private float downX;
+  private float lastMotionX;
+  private boolean dragging = false;
+
+  private boolean prelayoutScheduled = false;
+  private final MessageQueue.IdleHandler prelayout = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      prelayoutScheduled = prelayoutNextNeighbour();
+      return prelayoutScheduled;
+    }
+  };
+
+  /**
+   * Creates a new {@code DashboardPager} object and the given {link Context}-object.
+   *
+   * @param context The {@code Context} object
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardPager(Context context) {
+    super(context);
+    init(context);
+  }
+
+  /**
+   * Creates a new {@code DashboardPager} object and the given {link Context}-object.
+   *
+   * @param context The {@code Context} object
+   * @param attrs Attributes for the new {@code DashboardPager}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardPager(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    init(context);
+  }
+
+  /**
+   * Creates a new {@code DashboardPager} object and the given {link Context}-object.
+   *
+   * @param context The {@code Context} object
+   * @param attrs Attributes for the new {@code DashboardPager}.
+   * @param defStyle The style for this new {@code DashboardPager}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardPager(Context context, AttributeSet attrs, int defStyle) {
+    super(context, attrs, defStyle);
+    init(context);
+  }
+
+  private void init(Context context) {
+    scroller = new Scroller(context);
+    ViewConfiguration configuration = ViewConfiguration.get(context);
+    touchSlop = configuration.getScaledTouchSlop();
+    minFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+    for(int i = 0; i < SLOT_COUNT; i++) {
+      DashboardLayout layout = new DashboardLayout(context);
+      layout.setViewPool(viewPool);
+      slots[i] = layout;
+      slotPages[i] = -1;
+      addView(layout);
+    }
+  }
+
+  /**
+   * Sets the adapter containing the items for the pages.
+   *
+   * @param adapter The adapter.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setAdapter(DashboardAdapter<? extends DashboardItem> adapter) {
+    if(this.adapter != null) {
+      this.adapter.unregisterDataSetObserver(observer);
+    }
+    releaseAllSlots();
+    viewPool.clear();
+    this.adapter = adapter;
+    pageCapacity = 0;
+    paginationValid = false;
+    currentPage = 0;
+    scrollTo(0, 0);
+    if(adapter != null) {
+      if(observer == null) {
+        observer = new SourceObserver();
+      }
+      adapter.registerDataSetObserver(observer);
+    }
+    requestLayout();
+  }
+
+  /**
+   * Returns the adapter containing the items for the pages.
+   *
+   * @return The adapter, or {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardAdapter<? extends DashboardItem> getAdapter() {
+    return adapter;
+  }
+
+  /**
+   * Returns the number of pages. Only valid after the pager has been measured.
+   *
+   * @return The number of pages.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getPageCount() {
+    if((adapter == null) || (pageCapacity == 0)) {
+      return 0;
+    }
+    return DashboardGrid.computeRows(pageCapacity, Math.max(1, adapter.getCount()));
+  }
+
+  /**
+   * Returns the maximum number of items per page. Only valid after the pager has been measured.
+   *
+   * @return The number of items per page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getPageCapacity() {
+    return pageCapacity;
+  }
+
+  /**
+   * Returns the index of the current page.
+   *
+   * @return The current page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getCurrentPage() {
+    return currentPage;
+  }
+
+  /**
+   * Scrolls smoothly to the given page.
+   *
+   * @param page The index of the page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setCurrentPage(int page) {
+    setCurrentPage(page, true);
+  }
+
+  /**
+   * Shows the given page.
+   *
+   * @param page The index of the page.
+   * @param smoothScroll {@code true} to scroll smoothly to the page, {@code false} to jump.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setCurrentPage(int page, boolean smoothScroll) {
+    snapToPage(page, smoothScroll);
+  }
+
+  /**
+   * Sets the listener notified when another page becomes the current page.
+   *
+   * @param listener The listener, or {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setOnPageChangeListener(OnPageChangeListener listener) {
+    onPageChangeListener = listener;
+  }
+
+  /**
+   * Sets the number of columns desired per page. It also limits the number of columns used for
+   * computing the number of items per page.
+   *
+   * @param desiredCols the number of columns desired
+   *
+   * @see DashboardLayout#setDesiredCols(int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setDesiredCols(int desiredCols) {
+    this.desiredCols = desiredCols;
+    for(DashboardLayout slot : slots) {
+      slot.setDesiredCols(desiredCols);
+    }
+    invalidatePages();
+  }
+
+  /**
+   * Sets the number of rows desired per page. It also limits the number of rows used for
+   * computing the number of items per page.
+   *
+   * @param desiredRows the number of rows desired
+   *
+   * @see DashboardLayout#setDesiredRows(int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setDesiredRows(int desiredRows) {
+    this.desiredRows = desiredRows;
+    for(DashboardLayout slot : slots) {
+      slot.setDesiredRows(desiredRows);
+    }
+    invalidatePages();
+  }
+
+  /**
+   * Sets the fitter used for sizing the labels of the items to their cells on all pages.
+   *
+   * @param textFitter The fitter, or {@code null}.
+   *
+   * @see DashboardLayout#setTextFitter(DashboardTextFitter)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setTextFitter(DashboardTextFitter textFitter) {
+    for(DashboardLayout slot : slots) {
+      slot.setTextFitter(textFitter);
+    }
+  }
+
+  /**
+   * Sets the prefetcher warming the items of the pages beyond the bound neighbours of the current
+   * page.
+   *
+   * @param prefetcher The prefetcher, or {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setPrefetcher(DashboardPrefetcher prefetcher) {
+    if(this.prefetcher != null) {
+      this.prefetcher.cancel();
+    }
+    this.prefetcher = prefetcher;
+    prefetchAhead();
+  }
+
+  /**
+   * Sets whether moving the focus beyond the left or right edge of the current page jumps to the
+   * neighbouring page.
+   *
+   * @param focusPageJump {@code true} to jump to the neighbouring page, {@code false} to leave the
+   *                      focus search to the parent. Default is {@code true}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setFocusPageJump(boolean focusPageJump) {
+    this.focusPageJump = focusPageJump;
+  }
+
+  /**
+   * Returns whether moving the focus beyond the edge of the current page jumps to the
+   * neighbouring page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isFocusPageJump() {
+    return focusPageJump;
+  }
+
+  /**
+   * Only reached if the page of the focused item has no neighbour in the given direction. For the
+   * left and right edges, the focus continues in the same row of the neighbouring page, which is
+   * prepared right away if it isn't ready, yet.
+   *
+   * @see android.view.ViewGroup#focusSearch(android.view.View, int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public View focusSearch(View focused, int direction) {
+    if(focusPageJump && ((direction == View.FOCUS_LEFT) || (direction == View.FOCUS_RIGHT))) {
+      DashboardLayout current = slots[currentPage % SLOT_COUNT];
+      int cell = current.getFocusCell(focused);
+      boolean right = (direction == View.FOCUS_RIGHT);
+      int page = currentPage + (right ? 1 : -1);
+      if((cell >= 0) && (slotPages[currentPage % SLOT_COUNT] == currentPage) && prepareSlot(page)) {
+        View next = slots[page % SLOT_COUNT].findEdgeCell(cell / current.getFocusCols(), right);
+        if(next != null) {
+          snapToPage(page, true);
+          return next;
+        }
+      }
+    }
+    return super.focusSearch(focused, direction);
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+    int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+    setMeasuredDimension(width, height);
+
+    if((width != pageWidth) || (height != pageHeight) || !paginationValid) {
+      pageWidth = width;
+      pageHeight = height;
+      paginate();
+      prefetchAhead();
+    }
+
+    bindSlot(currentPage);
+    int childWidthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+    int childHeightSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+    for(int i = 0; i < SLOT_COUNT; i++) {
+      if((slotPages[i] == currentPage) || slotReady[i]) {
+        slots[i].measure(childWidthSpec, childHeightSpec);
+      }
+    }
+  }
+
+  @Override
+  protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    for(int i = 0; i < SLOT_COUNT; i++) {
+      if((slotPages[i] == currentPage) || slotReady[i]) {
+        layoutSlot(i);
+      }
+    }
+    if(scroller.isFinished() && !dragging) {
+      scrollTo(currentPage * pageWidth, 0);
+    }
+    schedulePrelayout();
+  }
+
+  @Override
+  public void computeScroll() {
+    if(scroller.computeScrollOffset()) {
+      scrollTo(scroller.getCurrX(), scroller.getCurrY());
+      postInvalidate();
+    }
+  }
+
+  @Override
+  public boolean onInterceptTouchEvent(MotionEvent ev) {
+    switch(ev.getAction() & MotionEvent.ACTION_MASK) {
+      case MotionEvent.ACTION_DOWN:
+        downX = lastMotionX = ev.getX();
+        dragging = !scroller.isFinished();
+        if(dragging) {
+          scroller.abortAnimation();
+        }
+        break;
+      case MotionEvent.ACTION_MOVE:
+        checkStartDrag(ev.getX());
+        break;
+      case MotionEvent.ACTION_UP:
+      case MotionEvent.ACTION_CANCEL:
+        dragging = false;
+        break;
+    }
+    return dragging;
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent ev) {
+    if(velocityTracker == null) {
+      velocityTracker = VelocityTracker.obtain();
+    }
+    velocityTracker.addMovement(ev);
+
+    switch(ev.getAction() & MotionEvent.ACTION_MASK) {
+      case MotionEvent.ACTION_DOWN:
+        downX = lastMotionX = ev.getX();
+        if(!scroller.isFinished()) {
+          scroller.abortAnimation();
+          startDrag();
+        }
+        break;
+      case MotionEvent.ACTION_MOVE:
+        float x = ev.getX();
+        if(!dragging) {
+          checkStartDrag(x);
+        }
+        if(dragging) {
+          int maxScroll = Math.max(0, getPageCount() - 1) * pageWidth;
+          int scrollX = Math.max(0, Math.min(maxScroll, getScrollX() + (int) (lastMotionX - x)));
+          scrollTo(scrollX, 0);
+          lastMotionX = x;
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        if(dragging) {
+          velocityTracker.computeCurrentVelocity(1000);
+          float velocity = velocityTracker.getXVelocity();
+          int page;
+          if(velocity < -minFlingVelocity) {
+            page = currentPage + 1;
+          } else if(velocity > minFlingVelocity) {
+            page = currentPage - 1;
+          } else {
+            page = (getScrollX() + (pageWidth / 2)) / Math.max(1, pageWidth);
+          }
+          snapToPage(page, true);
+        }
+        endDrag();
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        if(dragging) {
+          snapToPage(currentPage, true);
+        }
+        endDrag();
+        break;
+    }
+    return true;
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    schedulePrelayout();
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    if(prelayoutScheduled) {
+      Looper.myQueue().removeIdleHandler(prelayout);
+      prelayoutScheduled = false;
+    }
+    super.onDetachedFromWindow();
+  }
+
+  private void checkStartDrag(float x) {
+    if(Math.abs(x - downX) > touchSlop) {
+      lastMotionX = x;
+      startDrag();
+    }
+  }
+
+  private void startDrag() {
+    dragging = true;
+    if(getParent() != null) {
+      getParent().requestDisallowInterceptTouchEvent(true);
+    }
+    // Normally, the neighbours have been laid out while idle already. Only if the user was faster
+    // than that, they are prepared right here.
+    prepareSlot(currentPage - 1);
+    prepareSlot(currentPage + 1);
+  }
+
+  private void endDrag() {
+    dragging = false;
+    if(velocityTracker != null) {
+      velocityTracker.recycle();
+      velocityTracker = null;
+    }
+  }
+
+  private void snapToPage(int page, boolean smoothScroll) {
+    int pageCount = getPageCount();
+    page = Math.max(0, Math.min(page, pageCount - 1));
+    int targetX = page * pageWidth;
+    if(smoothScroll) {
+      int scrollX = getScrollX();
+      scroller.startScroll(scrollX, 0, targetX - scrollX, 0, SNAP_DURATION);
+      invalidate();
+    } else {
+      scroller.abortAnimation();
+      scrollTo(targetX, 0);
+    }
+    if(page != currentPage) {
+      currentPage = page;
+      reportVisibleRange();
+      if(!prepareSlot(page)) {
+        requestLayout();
+      }
+      schedulePrelayout();
+      prefetchAhead();
+      if(onPageChangeListener != null) {
+        onPageChangeListener.onPageSelected(page);
+      }
+    }
+  }
+
+  /**
+   * Computes the number of items per page from the largest of the first few items, and rebinds
+   * all pages if it changed. The current page is adjusted to keep its first item visible.
+   * Headers are skipped while measuring, as they may span the whole width in a plain layout.
+   * As they occupy a single cell on a page, no rows have to be subtracted for them.
+   */
+  private void paginate() {
+    int capacity = 0;
+    if((adapter != null) && (adapter.getCount() > 0) && (pageWidth > 0) && (pageHeight > 0)) {
+      int widthSpec = MeasureSpec.makeMeasureSpec(pageWidth, MeasureSpec.AT_MOST);
+      int heightSpec = MeasureSpec.makeMeasureSpec(pageHeight, MeasureSpec.AT_MOST);
+      int sampleWidth = 0;
+      int sampleHeight = 0;
+      int sampled = 0;
+      int count = adapter.getCount();
+      for(int position = 0; (position < count) && (sampled < SAMPLE_SIZE); position++) {
+        if(adapter.getItemViewType(position) == DashboardAdapter.ITEM_VIEW_TYPE_HEADER) {
+          continue;
+        }
+        View sample = measureSample(position, widthSpec, heightSpec);
+        sampleWidth = Math.max(sampleWidth, sample.getMeasuredWidth());
+        sampleHeight = Math.max(sampleHeight, sample.getMeasuredHeight());
+        sampled++;
+      }
+      if(sampled == 0) {
+        // headers only
+        View sample = measureSample(0, widthSpec, heightSpec);
+        sampleWidth = sample.getMeasuredWidth();
+        sampleHeight = sample.getMeasuredHeight();
+      }
+      capacity = DashboardGrid.pageCapacity(pageWidth, pageHeight, sampleWidth, sampleHeight,
+          desiredCols, desiredRows);
+    }
+    if(capacity != pageCapacity) {
+      int firstItem = currentPage * pageCapacity;
+      releaseAllSlots();
+      pageCapacity = capacity;
+      currentPage = (capacity > 0) ? Math.min(firstItem / capacity, getPageCount() - 1) : 0;
+    } else {
+      for(int i = 0; i < SLOT_COUNT; i++) {
+        slotReady[i] = false;
+      }
+    }
+    currentPage = Math.max(0, currentPage);
+    paginationValid = true;
+    reportVisibleRange();
+  }
+
+  /**
+   * Binds and measures the view of the given position, and returns it to the pool afterwards,
+   * using the view type the pages report for it.
+   */
+  private View measureSample(int position, int widthSpec, int heightSpec) {
+    int viewType = adapter.getItemViewType(position);
+    if(viewType == DashboardAdapter.ITEM_VIEW_TYPE_HEADER) {
+      viewType = adapter.getViewTypeCount();
+    }
+    View sample = adapter.getView(position, viewPool.get(viewType), this);
+    sample.measure(widthSpec, heightSpec);
+    if(sample.getParent() == null) {
+      viewPool.put(viewType, sample);
+    }
+    return sample;
+  }
+
+  /**
+   * Reports the range of the current page to a {@link PagedDashboardAdapter}, so it loads the
+   * pages of items around it.
+   */
+  private void reportVisibleRange() {
+    if((adapter instanceof PagedDashboardAdapter) && (pageCapacity > 0)) {
+      ((PagedDashboardAdapter) adapter).setVisibleRange(currentPage * pageCapacity, pageCapacity);
+    }
+  }
+
+  /**
+   * Returns the views of all pages to the pool, and has the pages rebound and the number of items
+   * per page computed again in the next layout pass.
+   */
+  private void invalidatePages() {
+    releaseAllSlots();
+    paginationValid = false;
+    requestLayout();
+  }
+
+  /**
+   * Binds the slot of the given page to it, unless it already is.
+   *
+   * @return The slot, or {@code -1} if the page doesn't exist.
+   */
+  private int bindSlot(int page) {
+    if((page < 0) || (page >= getPageCount())) {
+      return -1;
+    }
+    int slot = page % SLOT_COUNT;
+    if(slotPages[slot] != page) {
+      DashboardLayout layout = slots[slot];
+      layout.releaseAdapter();
+      slotPages[slot] = page;
+      slotReady[slot] = false;
+      layout.setAdapter(new PageAdapter(adapter, page * pageCapacity, pageCapacity));
+    }
+    return slot;
+  }
+
+  /**
+   * Binds, measures and lays out the slot of the given page, unless that already happened.
+   *
+   * @return {@code true} if the page is ready, {@code false} if it doesn't exist.
+   */
+  private boolean prepareSlot(int page) {
+    int slot = bindSlot(page);
+    if(slot < 0) {
+      return false;
+    }
+    if(!slotReady[slot] && (pageWidth > 0)) {
+      slots[slot].measure(MeasureSpec.makeMeasureSpec(pageWidth, MeasureSpec.EXACTLY),
+          MeasureSpec.makeMeasureSpec(pageHeight, MeasureSpec.EXACTLY));
+      layoutSlot(slot);
+      slotReady[slot] = true;
+    }
+    return true;
+  }
+
+  private void layoutSlot(int slot) {
+    int left = slotPages[slot] * pageWidth;
+    slots[slot].layout(left, 0, left + pageWidth, pageHeight);
+  }
+
+  /**
+   * Prepares one of the neighbours of the current page that isn't ready, yet.
+   *
+   * @return {@code true} if there may be more work left, {@code false} if both neighbours are
+   *         ready.
+   */
+  private boolean prelayoutNextNeighbour() {
+    if(pageCapacity == 0) {
+      return false;
+    }
+    int[] neighbours = {currentPage + 1, currentPage - 1};
+    for(int page : neighbours) {
+      if((page < 0) || (page >= getPageCount())) {
+        continue;
+      }
+      int slot = page % SLOT_COUNT;
+      if((slotPages[slot] != page) || !slotReady[slot]) {
+        prepareSlot(page);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Hands the items of the pages next to the neighbours of the current page to the prefetcher.
+   * The neighbours themselves are bound while idle anyway.
+   */
+  private void prefetchAhead() {
+    if((prefetcher == null) || (adapter == null) || (pageCapacity == 0)) {
+      return;
+    }
+    ArrayList<DashboardItem> items = new ArrayList<DashboardItem>();
+    addPageItems(items, currentPage + 2);
+    addPageItems(items, currentPage - 2);
+    prefetcher.prefetch(items);
+  }
+
+  private void addPageItems(List<DashboardItem> items, int page) {
+    if((page < 0) || (page >= getPageCount())) {
+      return;
+    }
+    int first = page * pageCapacity;
+    int end = Math.min(first + pageCapacity, adapter.getCount());
+    for(int i = first; i < end; i++) {
+      items.add((DashboardItem) adapter.getItem(i));
+    }
+  }
+
+  private void schedulePrelayout() {
+    if(!prelayoutScheduled && (pageCapacity > 0)) {
+      prelayoutScheduled = true;
+      Looper.myQueue().addIdleHandler(prelayout);
+    }
+  }
+
+  private void releaseAllSlots() {
+    for(int i = 0; i < SLOT_COUNT; i++) {
+      slots[i].releaseAdapter();
+      slotPages[i] = -1;
+      slotReady[i] = false;
+    }
+  }
+
+  /**
+   * Translates the notifications of the pager's adapter into notifications of the bound pages.
+   * Changes that shift items across page boundaries rebind all pages from the affected one on.
+   * The views are taken from the shared pool, so this doesn't inflate any new ones.
+   */
+  private final class SourceObserver extends DashboardDataSetObserver {
+
+    SourceObserver() {
+      // all callbacks are overridden, so the observer is not bound to a single layout
+      super(null);
+    }
+
+    @Override
+    public void onChanged() {
+      invalidatePages();
+    }
+
+    @Override
+    public void onInvalidated() {
+      invalidatePages();
+    }
+
+    @Override
+    public void onItemInserted(int position) {
+      onItemsShifted(position);
+    }
+
+    @Override
+    public void onItemRemoved(int position) {
+      onItemsShifted(position);
+    }
+
+    @Override
+    public void onItemMoved(int fromPosition, int toPosition) {
+      onItemsShifted(Math.min(fromPosition, toPosition));
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+      for(int i = 0; i < SLOT_COUNT; i++) {
+        if(slotPages[i] < 0) {
+          continue;
+        }
+        int first = slotPages[i] * pageCapacity;
+        int start = Math.max(positionStart, first);
+        int end = Math.min(positionStart + itemCount, first + pageCapacity);
+        if(start < end) {
+          slots[i].onItemRangeChanged(start - first, end - start);
+        }
+      }
+    }
+
+    private void onItemsShifted(int position) {
+      if(pageCapacity == 0) {
+        invalidatePages();
+        return;
+      }
+      int pageCount = getPageCount();
+      int firstAffectedPage = position / pageCapacity;
+      for(int i = 0; i < SLOT_COUNT; i++) {
+        if(slotPages[i] >= pageCount) {
+          slots[i].releaseAdapter();
+          slotPages[i] = -1;
+          slotReady[i] = false;
+        } else if(slotPages[i] >= firstAffectedPage) {
+          slots[i].recycleAllViews();
+          slots[i].populateFromAdapter();
+          slotReady[i] = false;
+        }
+      }
+      if(currentPage >= pageCount) {
+        snapToPage(pageCount - 1, false);
+      }
+      requestLayout();
+    }
+  }
+
+  /**
+   * Adapter presenting a single page of the pager's adapter to a {@link DashboardLayout}.
+   */
+  private static final class PageAdapter extends DashboardAdapter<DashboardItem> {
+    private final DashboardAdapter<? extends DashboardItem> source;
+    private final int first;
+    private final int capacity;
+
+    PageAdapter(DashboardAdapter<? extends DashboardItem> source, int first, int capacity) {
+      this(new PageList(source, first, capacity), source, first, capacity);
+    }
+
+    private PageAdapter(PageList list, DashboardAdapter<? extends DashboardItem> source, int first,
+                        int capacity) {
+      super(list, source.getInflater(), source.getOnClickListener());
+      this.source = source;
+      this.first = first;
+      this.capacity = capacity;
+    }
+
+    @Override
+    public boolean canMoveItems() {
+      return false;
+    }
+
+    @Override
+    public int getCount() {
+      return pageSize(source, first, capacity);
+    }
+
+    @Override
+    public Object getItem(int position) {
+      return source.getItem(first + position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+      return source.getItemId(first + position);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+      return source.hasStableIds();
+    }
+
+    /**
+     * Returns the source's view type, except for headers, which get a view type of their own
+     * beyond the source's ones. That keeps header views in scrap lists of their own, without the
+     * page's layout treating them as headers.
+     */
+    @Override
+    public int getItemViewType(int position) {
+      int viewType = source.getItemViewType(first + position);
+      return (viewType == ITEM_VIEW_TYPE_HEADER) ? source.getViewTypeCount() : viewType;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+      return source.getViewTypeCount() + 1;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+      return source.getView(first + position, convertView, parent);
+    }
+
+    static int pageSize(DashboardAdapter<? extends DashboardItem> source, int first, int capacity) {
+      return Math.max(0, Math.min(capacity, source.getCount() - first));
+    }
+  }
+
+  /**
+   * Read-only list view of a single page, as returned by {@link PageAdapter#getList()}.
+   */
+  private static final class PageList extends AbstractList<DashboardItem> {
+    private final DashboardAdapter<? extends DashboardItem> source;
+    private final int first;
+    private final int capacity;
+
+    PageList(DashboardAdapter<? extends DashboardItem> source, int first, int capacity) {
+      this.source = source;
+      this.first = first;
+      this.capacity = capacity;
+    }
+
+    @Override
+    public DashboardItem get(int location) {
+      return (DashboardItem) source.getItem(first + location);
+    }
+
+    @Override
+    public int size() {
+      return PageAdapter.pageSize(source, first, capacity);
+    }
+  }
+}
@@ -0,0 +1,293 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Warms icons and label measurements of items predicted to appear soon,
+// within a memory budget, while the main thread is idle.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v4.util.LruCache;
+import android.text.TextPaint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * <p>Warms the icons and text measurements of items that are predicted to appear soon, e.g. on the
+ * next page of a {@link DashboardPager}, in a sub-dashboard of a {@link DashboardNavigator}, or
+ * after a filter change, so they don't pop in when they are bound.</p>
+ * <p>A prediction is handed over through {@link #prefetch(Collection)}, and replaces any previous
+ * prediction: work for items that are no longer predicted is cancelled. The items are processed
+ * in small batches while the main thread is idle, each batch limited to a few milliseconds.</p>
+ * <p>Warming an item resolves its icon, which the item keeps from then on, and decodes it if it's
+ * a bitmap. The prefetcher keeps a reference to the warmed icons as well, so it doesn't warm the
+ * same icon twice. The budget only bounds these references, accounted for in bytes and evicted in
+ * least-recently-warmed order: it limits the icons kept alive by the prefetcher after their items
+ * are gone, not the icons held by the items themselves. If text metrics have been set through
+ * {@link #setTextMetrics(TextPaint, DashboardTextFitter, int, int)}, the labels are measured as
+ * well, which fills the font caches and, if a fitter is given, the fitter's cache.</p>
+ * <p>As a {@link DashboardMemoryConsumer}, the prefetcher can be trimmed by a
+ * {@link DashboardMemoryManager}, usually in the tier {@link DashboardMemoryManager#TIER_ICONS}.
+ * </p>
+ * <p>The prefetcher is meant to be used from the main thread only.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardPrefetcher implements DashboardMemoryConsumer {
+
+  /**
+   * The default memory budget for the references to warmed icons, in bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_BUDGET = 4 * 1024 * 1024;
+
+  private static final long BATCH_NANOS = 4000000L;
+
+  private final IconCache icons;
+  private final ArrayList<DashboardItem> pending = new ArrayList<DashboardItem>();
+  private int nextPending = 0;
+
+  private TextPaint textPaint = null;
+  private DashboardTextFitter textFitter = null;
+  private int cellWidth = 0;
+  private int cellHeight = 0;
+
+  private boolean scheduled = false;
+  private final MessageQueue.IdleHandler worker = new MessageQueue.IdleHandler() {
+    @Override
+    public boolean queueIdle() {
+      scheduled = runBatch();
+      return scheduled;
+    }
+  };
+
+  /**
+   * Creates a {@code DashboardPrefetcher} with the {@link #DEFAULT_BUDGET}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardPrefetcher() {
+    this(DEFAULT_BUDGET);
+  }
+
+  /**
+   * Creates a {@code DashboardPrefetcher}.
+   *
+   * @param budget The maximum number of bytes of warmed icons referenced by the prefetcher.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardPrefetcher(int budget) {
+    icons = new IconCache(Math.max(1, budget));
+  }
+
+  /**
+   * Sets the metrics used for warming the labels of the predicted items.
+   *
+   * @param paint The paint the labels are drawn with, or {@code null} to not warm the labels.
+   * @param fitter The fitter used for sizing the labels, or {@code null} if the labels are not
+   *               fitted.
+   * @param cellWidth The width of a cell, only used with a fitter.
+   * @param cellHeight The height of a cell, only used with a fitter.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setTextMetrics(TextPaint paint, DashboardTextFitter fitter, int cellWidth,
+                             int cellHeight) {
+    this.textPaint = paint;
+    this.textFitter = fitter;
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+  }
+
+  /**
+   * Replaces the current prediction with the given items. Work for items of the previous
+   * prediction that hasn't been done yet is cancelled. An empty prediction cancels all work, see
+   * {@link #cancel()}.
+   *
+   * @param items The items predicted to appear soon, in the order of their likelihood.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void prefetch(Collection<? extends DashboardItem> items) {
+    if(items.isEmpty()) {
+      cancel();
+      return;
+    }
+    pending.clear();
+    nextPending = 0;
+    pending.addAll(items);
+    if(!scheduled) {
+      scheduled = true;
+      Looper.myQueue().addIdleHandler(worker);
+    }
+  }
+
+  /**
+   * Cancels all work that hasn't been done yet. The references to icons already warmed are kept.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void cancel() {
+    pending.clear();
+    nextPending = 0;
+    if(scheduled) {
+      Looper.myQueue().removeIdleHandler(worker);
+      scheduled = false;
+    }
+  }
+
+  /**
+   * Checks whether there are predicted items that haven't been warmed, yet.
+   *
+   * @return {@code true} if there is work left.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isPending() {
+    return nextPending < pending.size();
+  }
+
+  /**
+   * Returns the number of bytes of the warmed icons referenced by the prefetcher.
+   *
+   * @return The number of bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getSize() {
+    return icons.size();
+  }
+
+  /**
+   * Releases references to warmed icons until their size is at most the given number of bytes.
+   *
+   * @param size The number of bytes to keep.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void trimToSize(int size) {
+    icons.trimToSize(Math.max(0, size));
+  }
+
+  /**
+   * Releases the references to all warmed icons.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void clear() {
+    icons.evictAll();
+  }
+
+  @Override
+  public long getMemorySize() {
+    return getSize();
+  }
+
+  @Override
+  public void trimMemoryTo(long bytes) {
+    trimToSize((int) Math.min(Integer.MAX_VALUE, bytes));
+  }
+
+  private boolean runBatch() {
+    long deadline = System.nanoTime() + BATCH_NANOS;
+    while((nextPending < pending.size()) && (System.nanoTime() < deadline)) {
+      warm(pending.get(nextPending++));
+    }
+    if(nextPending < pending.size()) {
+      return true;
+    }
+    pending.clear();
+    nextPending = 0;
+    return false;
+  }
+
+  private void warm(DashboardItem item) {
+    Drawable icon = item.getIconDrawable();
+    if(icon != null) {
+      Long key = Long.valueOf(item.getID());
+      if(icons.get(key) != icon) {
+        if(icon instanceof BitmapDrawable) {
+          Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+          if(bitmap != null) {
+            bitmap.prepareToDraw();
+          }
+        }
+        icons.put(key, icon);
+      }
+    }
+
+    CharSequence text = item.getText();
+    if((textPaint != null) && (text != null) && (text.length() > 0)) {
+      if(textFitter != null) {
+        textFitter.fit(text, cellWidth, cellHeight, textPaint);
+      } else {
+        textPaint.measureText(text, 0, text.length());
+      }
+    }
+  }
+
+  /**
+   * LRU-cache of the references to the warmed icons, sized in bytes.
+   */
+  private static final class IconCache extends LruCache<Long, Drawable> {
+    IconCache(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    protected int sizeOf(Long key, Drawable value) {
+      return Math.max(1, DashboardMemoryManager.estimateBytes(value));
+    }
+  }
+}
@@ -0,0 +1,602 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Renders the items of a DashboardAdapter into a Bitmap on a background
+// thread, without creating any views.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.LruCache;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>Renders the items of a {@link DashboardAdapter} into a {@link Bitmap} of a given size, e.g.
+ * for previews, thumbnails in recents or share images, without creating any views or attaching
+ * anything to a window.</p>
+ * <p>When {@link #render(DashboardAdapter, int, int, OnRenderedListener)} is called, only the IDs,
+ * texts, states and icons of the items are read. Solving the grid, measuring the labels and
+ * drawing the cells happens on a background {@link Executor}. The cells are arranged like a
+ * {@link DashboardLayout} would arrange them, each showing the icon of its item above the label.
+ * Headers are left out.</p>
+ * <p>The rendered bitmaps are cached by the items' content and the requested size, so rendering
+ * the same content again is answered from the cache. The content covers the IDs, texts and states
+ * of the items, and the identities of their icons, so replacing an icon renders the bitmap again.
+ * A hash of the content is only used for looking it up, the content itself is compared. Changing
+ * the style of the renderer releases all cached bitmaps. If rendering fails, the listeners are
+ * told so, and the next request renders again. The cache is accounted for in bytes, and evicts the
+ * least-recently used bitmaps once they exceed the configured budget. As a
+ * {@link DashboardMemoryConsumer}, the renderer can be trimmed by a {@link DashboardMemoryManager},
+ * usually in the tier {@link DashboardMemoryManager#TIER_VIEWS}. Bitmaps handed out by the
+ * renderer must not be recycled by the caller, as they may still be cached.</p>
+ * <p>The icons are drawn from copies created through their {@code ConstantState}, so drawing them
+ * doesn't interfere with the views showing them. Icons without a {@code ConstantState} are left
+ * out.</p>
+ * <p>The renderer is meant to be used from the main thread only.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardRenderer implements DashboardMemoryConsumer {
+
+  /**
+   * Listener for the completion of {@link #render(DashboardAdapter, int, int, OnRenderedListener)}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface OnRenderedListener {
+    /**
+     * Called on the main thread once the bitmap is available.
+     *
+     * @param bitmap The rendered bitmap.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    void onRendered(Bitmap bitmap);
+
+    /**
+     * Called on the main thread if rendering failed, e.g. because there was not enough memory for
+     * the bitmap.
+     *
+     * @param error The cause of the failure.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    void onRenderFailed(Throwable error);
+  }
+
+  /**
+   * The default memory budget for cached bitmaps, in bytes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_BUDGET = 8 * 1024 * 1024;
+
+  private static final int DEFAULT_ICON_SIZE_DP = 48;
+  private static final int DEFAULT_TEXT_SIZE_SP = 14;
+  private static final int DEFAULT_PADDING_DP = 4;
+  private static final int DISABLED_ALPHA = 0x80;
+
+  private static ExecutorService defaultExecutor = null;
+
+  private final BitmapCache bitmaps;
+  private final Executor executor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final HashMap<Key, ArrayList<OnRenderedListener>> pending =
+      new HashMap<Key, ArrayList<OnRenderedListener>>();
+
+  private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+  private int iconSize;
+  private int padding;
+  private int backgroundColor = Color.TRANSPARENT;
+  private int desiredCols = 0;
+  private int desiredRows = 0;
+  private int styleGeneration = 0;
+
+  /**
+   * Creates a {@code DashboardRenderer} with the {@link #DEFAULT_BUDGET}, rendering on a shared
+   * background thread.
+   *
+   * @param context The context used for the default metrics.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardRenderer(Context context) {
+    this(context, DEFAULT_BUDGET, getDefaultExecutor());
+  }
+
+  /**
+   * Creates a {@code DashboardRenderer}.
+   *
+   * @param context The context used for the default metrics.
+   * @param budget The maximum number of bytes of cached bitmaps.
+   * @param executor The executor the bitmaps are rendered on.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardRenderer(Context context, int budget, Executor executor) {
+    this.bitmaps = new BitmapCache(Math.max(1, budget));
+    this.executor = executor;
+    float density = context.getResources().getDisplayMetrics().density;
+    float scaledDensity = context.getResources().getDisplayMetrics().scaledDensity;
+    iconSize = Math.round(DEFAULT_ICON_SIZE_DP * density);
+    padding = Math.round(DEFAULT_PADDING_DP * density);
+    textPaint.setTextSize(DEFAULT_TEXT_SIZE_SP * scaledDensity);
+    textPaint.setColor(Color.BLACK);
+    textPaint.setTextAlign(Paint.Align.CENTER);
+  }
+
+  /**
+   * Sets the size of the icons.
+   *
+   * @param iconSize The width and height of an icon, in pixels.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setIconSize(int iconSize) {
+    this.iconSize = Math.max(0, iconSize);
+    onStyleChanged();
+  }
+
+  /**
+   * Sets the size of the labels.
+   *
+   * @param textSize The text size, in pixels.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setTextSize(float textSize) {
+    textPaint.setTextSize(textSize);
+    onStyleChanged();
+  }
+
+  /**
+   * Sets the color of the labels.
+   *
+   * @param textColor The color. Default is black.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setTextColor(int textColor) {
+    textPaint.setColor(textColor);
+    onStyleChanged();
+  }
+
+  /**
+   * Sets the color the bitmaps are filled with before drawing the cells.
+   *
+   * @param backgroundColor The color. Default is transparent.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setBackgroundColor(int backgroundColor) {
+    this.backgroundColor = backgroundColor;
+    onStyleChanged();
+  }
+
+  /**
+   * Sets the desired number of columns and rows, like {@link DashboardLayout#setDesiredCols(int)}
+   * and {@link DashboardLayout#setDesiredRows(int)}.
+   *
+   * @param cols The desired number of columns, or {@code 0} for no preference.
+   * @param rows The desired number of rows, or {@code 0} for no preference.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setColsAndRows(int cols, int rows) {
+    this.desiredCols = Math.max(0, cols);
+    this.desiredRows = Math.max(0, rows);
+    onStyleChanged();
+  }
+
+  /**
+   * Renders the items of the given adapter into a bitmap of the given size. If a bitmap of the
+   * same content and size is cached, the listener is called immediately. Otherwise the bitmap is
+   * rendered in the background, and the listener is called on the main thread once it's done.
+   * Requests for content that is already being rendered share the pending result.
+   *
+   * @param adapter The adapter providing the items.
+   * @param width The width of the bitmap.
+   * @param height The height of the bitmap.
+   * @param listener The listener receiving the bitmap.
+   *
+   * @throws IllegalArgumentException If {@code width} or {@code height} is not positive.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void render(DashboardAdapter<? extends DashboardItem> adapter, int width, int height,
+                     OnRenderedListener listener) {
+    if((width <= 0) || (height <= 0)) {
+      throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+    }
+    final Snapshot snapshot = new Snapshot(adapter);
+    final Key key = new Key(snapshot, width, height, styleGeneration);
+    Bitmap bitmap = bitmaps.get(key);
+    if(bitmap != null) {
+      listener.onRendered(bitmap);
+      return;
+    }
+    ArrayList<OnRenderedListener> listeners = pending.get(key);
+    if(listeners != null) {
+      listeners.add(listener);
+      return;
+    }
+    listeners = new ArrayList<OnRenderedListener>(1);
+    listeners.add(listener);
+    pending.put(key, listeners);
+
+    final Style style = new Style(this);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Bitmap bitmap = null;
+        Throwable error = null;
+        try {
+          bitmap = draw(snapshot, key.width, key.height, style);
+        } catch(Throwable t) {
+          // including OutOfMemoryError, the pending request has to be completed either way
+          error = t;
+        } finally {
+          final Bitmap result = bitmap;
+          final Throwable failure = error;
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              onRendered(key, result, failure);
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the cached bitmap for the current content of the given adapter, without rendering
+   * anything.
+   *
+   * @param adapter The adapter providing the items.
+   * @param width The width of the bitmap.
+   * @param height The height of the bitmap.
+   *
+   * @return The bitmap, or {@code null} if it isn't cached.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public Bitmap getCached(DashboardAdapter<? extends DashboardItem> adapter, int width,
+                          int height) {
+    return bitmaps.get(new Key(new Snapshot(adapter), width, height, styleGeneration));
+  }
+
+  /**
+   * Releases all cached bitmaps.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void clear() {
+    bitmaps.evictAll();
+  }
+
+  @Override
+  public long getMemorySize() {
+    return bitmaps.size();
+  }
+
+  @Override
+  public void trimMemoryTo(long bytes) {
+    bitmaps.trimToSize((int) Math.max(0, Math.min(Integer.MAX_VALUE, bytes)));
+  }
+
+  private void onRendered(Key key, Bitmap bitmap, Throwable error) {
+    ArrayList<OnRenderedListener> listeners = pending.remove(key);
+    if((bitmap != null) && (key.styleGeneration == styleGeneration)) {
+      // bitmaps of an outdated style would never be requested again
+      bitmaps.put(key, bitmap);
+    }
+    if(listeners == null) {
+      return;
+    }
+    for(OnRenderedListener listener : listeners) {
+      if(bitmap != null) {
+        listener.onRendered(bitmap);
+      } else {
+        listener.onRenderFailed(error);
+      }
+    }
+  }
+
+  /**
+   * Starts a new style generation, releasing the bitmaps rendered with the previous style.
+   */
+  private void onStyleChanged() {
+    styleGeneration++;
+    bitmaps.evictAll();
+  }
+
+  /**
+   * Draws the given items into a new bitmap. Called on the background thread.
+   */
+  private static Bitmap draw(Snapshot snapshot, int width, int height, Style style) {
+    Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+    canvas.drawColor(style.backgroundColor);
+    final int count = snapshot.texts.length;
+    if(count == 0) {
+      return bitmap;
+    }
+
+    // the natural size of a cell, as a button with the icon above its label would measure
+    TextPaint paint = style.textPaint;
+    float textWidth = 0;
+    for(int i = 0; i < count; i++) {
+      CharSequence text = snapshot.texts[i];
+      if(text != null) {
+        textWidth = Math.max(textWidth, paint.measureText(text, 0, text.length()));
+      }
+    }
+    int textHeight = Math.round(paint.descent() - paint.ascent());
+    int childWidth = Math.min(width,
+        Math.max(style.iconSize, (int) Math.ceil(textWidth)) + (2 * style.padding));
+    int childHeight = Math.min(height, style.iconSize + textHeight + (3 * style.padding));
+
+    DashboardGrid grid = DashboardGrid.solve(width, height, childWidth, childHeight, count,
+        style.desiredCols, style.desiredRows);
+    int contentHeight = style.iconSize + style.padding + textHeight;
+    int textColor = paint.getColor();
+
+    for(int i = 0; i < count; i++) {
+      int left = grid.getCellLeft(i % grid.cols);
+      int top = grid.getCellTop(i / grid.cols);
+      int centerX = left + (grid.cellWidth / 2);
+      int contentTop = top + Math.max(0, (grid.cellHeight - contentHeight) / 2);
+      boolean enabled = snapshot.enabled[i];
+
+      Drawable icon = copyIcon(snapshot.icons[i]);
+      if((icon != null) && (style.iconSize > 0)) {
+        int iconLeft = centerX - (style.iconSize / 2);
+        icon.setBounds(iconLeft, contentTop, iconLeft + style.iconSize,
+            contentTop + style.iconSize);
+        if(!enabled) {
+          icon.setAlpha(DISABLED_ALPHA);
+        }
+        icon.draw(canvas);
+      }
+
+      CharSequence text = snapshot.texts[i];
+      if((text != null) && (text.length() > 0)) {
+        CharSequence label = TextUtils.ellipsize(text, paint,
+            Math.max(0, grid.cellWidth - (2 * style.padding)), TextUtils.TruncateAt.END);
+        paint.setColor(enabled ? textColor
+            : ((textColor & 0x00FFFFFF) | ((Color.alpha(textColor) / 2) << 24)));
+        float baseline = contentTop + style.iconSize + style.padding - paint.ascent();
+        canvas.drawText(label, 0, label.length(), centerX, baseline, paint);
+      }
+    }
+    paint.setColor(textColor);
+    return bitmap;
+  }
+
+  /**
+   * Creates an independent copy of the given icon, so its bounds and alpha can be changed without
+   * affecting views showing the icon at the same time.
+   */
+  private static Drawable copyIcon(Drawable icon) {
+    if(icon == null) {
+      return null;
+    }
+    Drawable.ConstantState state = icon.getConstantState();
+    return (state != null) ? state.newDrawable().mutate() : null;
+  }
+
+  private static synchronized ExecutorService getDefaultExecutor() {
+    if(defaultExecutor == null) {
+      defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "DashboardRenderer");
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY);
+          return thread;
+        }
+      });
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * The items of an adapter as read on the main thread, together with the fingerprint of their
+   * content.
+   */
+  private static final class Snapshot {
+    final long[] ids;
+    final CharSequence[] texts;
+    final boolean[] enabled;
+    final Drawable[] icons;
+    final long fingerprint;
+
+    Snapshot(DashboardAdapter<? extends DashboardItem> adapter) {
+      final int count = adapter.getCount();
+      ArrayList<DashboardItem> items = new ArrayList<DashboardItem>(count);
+      for(int i = 0; i < count; i++) {
+        Object item = adapter.getItem(i);
+        if((item instanceof DashboardItem)
+            && (adapter.getItemViewType(i) != DashboardAdapter.ITEM_VIEW_TYPE_HEADER)) {
+          items.add((DashboardItem) item);
+        }
+      }
+      final int size = items.size();
+      ids = new long[size];
+      texts = new CharSequence[size];
+      enabled = new boolean[size];
+      icons = new Drawable[size];
+      long hash = size;
+      for(int i = 0; i < size; i++) {
+        DashboardItem item = items.get(i);
+        ids[i] = item.getID();
+        texts[i] = item.getText();
+        enabled[i] = item.isEnabled();
+        icons[i] = item.getIconDrawable();
+        hash = (31 * hash) + ids[i];
+        hash = (31 * hash) + ((texts[i] != null) ? texts[i].toString().hashCode() : 0);
+        hash = (31 * hash) + (enabled[i] ? 1 : 0);
+        hash = (31 * hash) + System.identityHashCode(icons[i]);
+      }
+      fingerprint = hash;
+    }
+
+    /**
+     * Checks whether the given snapshot has the same content, comparing the texts by their
+     * characters, and the icons by identity.
+     */
+    boolean hasSameContent(Snapshot other) {
+      if(other == this) {
+        return true;
+      }
+      if((fingerprint != other.fingerprint) || !Arrays.equals(ids, other.ids)
+          || !Arrays.equals(enabled, other.enabled)) {
+        return false;
+      }
+      for(int i = 0; i < texts.length; i++) {
+        if((icons[i] != other.icons[i]) || !TextUtils.equals(texts[i], other.texts[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The style settings of the renderer at the time a bitmap was requested, so changing them
+   * doesn't affect bitmaps that are already being rendered.
+   */
+  private static final class Style {
+    final TextPaint textPaint;
+    final int iconSize;
+    final int padding;
+    final int backgroundColor;
+    final int desiredCols;
+    final int desiredRows;
+
+    Style(DashboardRenderer renderer) {
+      textPaint = new TextPaint(renderer.textPaint);
+      iconSize = renderer.iconSize;
+      padding = renderer.padding;
+      backgroundColor = renderer.backgroundColor;
+      desiredCols = renderer.desiredCols;
+      desiredRows = renderer.desiredRows;
+    }
+  }
+
+  /**
+   * The key of a rendered bitmap. Keeps the snapshot, so keys with colliding fingerprints are still
+   * told apart by their content.
+   */
+  private static final class Key {
+    private final Snapshot snapshot;
+    private final int width;
+    private final int height;
+    private final int styleGeneration;
+
+    Key(Snapshot snapshot, int width, int height, int styleGeneration) {
+      this.snapshot = snapshot;
+      this.width = width;
+      this.height = height;
+      this.styleGeneration = styleGeneration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return (width == other.width) && (height == other.height)
+          && (styleGeneration == other.styleGeneration) && snapshot.hasSameContent(other.snapshot);
+    }
+
+    @Override
+    public int hashCode() {
+      long fingerprint = snapshot.fingerprint;
+      int result = (int) (fingerprint ^ (fingerprint >>> 32));
+      result = (31 * result) + width;
+      result = (31 * result) + height;
+      return (31 * result) + styleGeneration;
+    }
+  }
+
+  /**
+   * LRU-cache of the rendered bitmaps, sized in bytes.
+   */
+  private static final class BitmapCache extends LruCache<Key, Bitmap> {
+    BitmapCache(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    protected int sizeOf(Key key, Bitmap value) {
+      return Math.max(1, value.getRowBytes() * value.getHeight());
+    }
+  }
+}
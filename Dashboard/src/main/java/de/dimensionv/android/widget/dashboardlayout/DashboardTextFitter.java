@@ -0,0 +1,259 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Finds and caches the largest text size letting a label fit into a
+// dashboard cell.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.graphics.Typeface;
+import android.support.v4.util.LruCache;
+import android.text.TextPaint;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+/**
+ * <p>Finds the largest text size that lets a label fit into a dashboard cell on a single line.</p>
+ * <p>The size is determined by a binary search over text measurements between a minimum and a
+ * maximum size. The results are cached by text, available space and text style, so a single fitter
+ * can be shared by all cells and layouts, and relayouts with unchanged labels and cell sizes don't
+ * measure any text at all.</p>
+ * <p>The fitter is used by the {@link DashboardLayout} once it has been set through
+ * {@link DashboardLayout#setTextFitter(DashboardTextFitter)}. It is not thread-safe, and is meant
+ * to be used from the main thread only.</p>
+ * <p>As a {@link DashboardMemoryConsumer}, the fitter can be trimmed by a
+ * {@link DashboardMemoryManager}, usually in the tier
+ * {@link DashboardMemoryManager#TIER_TEXT_LAYOUTS}. Its size is estimated from the number of cached
+ * results.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardTextFitter implements DashboardMemoryConsumer {
+
+  /**
+   * The default number of cached results.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_CACHE_SIZE = 256;
+
+  /**
+   * The estimated number of bytes of a single cached result, including its key.
+   */
+  private static final int ENTRY_BYTES = 128;
+
+  private final int minTextSize;
+  private final int maxTextSize;
+  private final LruCache<Key, Float> cache;
+  private final TextPaint workPaint = new TextPaint();
+
+  /**
+   * Creates a {@code DashboardTextFitter} caching up to {@link #DEFAULT_CACHE_SIZE} results.
+   *
+   * @param minTextSize The smallest text size in pixels. Labels that don't fit at this size are
+   *                    left to the view for truncation.
+   * @param maxTextSize The largest text size in pixels.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardTextFitter(int minTextSize, int maxTextSize) {
+    this(minTextSize, maxTextSize, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a {@code DashboardTextFitter}.
+   *
+   * @param minTextSize The smallest text size in pixels. Labels that don't fit at this size are
+   *                    left to the view for truncation.
+   * @param maxTextSize The largest text size in pixels.
+   * @param cacheSize The maximum number of cached results.
+   *
+   * @throws IllegalArgumentException If {@code minTextSize} is not positive or larger than
+   *                                  {@code maxTextSize}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardTextFitter(int minTextSize, int maxTextSize, int cacheSize) {
+    if((minTextSize <= 0) || (minTextSize > maxTextSize)) {
+      throw new IllegalArgumentException(
+          "Invalid text size range " + minTextSize + ".." + maxTextSize);
+    }
+    this.minTextSize = minTextSize;
+    this.maxTextSize = maxTextSize;
+    this.cache = new LruCache<Key, Float>(Math.max(1, cacheSize));
+  }
+
+  /**
+   * Returns the largest text size at which the given text fits into the given space on a single
+   * line, using the style of the given paint.
+   *
+   * @param text The text.
+   * @param availableWidth The width available for the text.
+   * @param availableHeight The height available for the text.
+   * @param paint The paint providing the style of the text. It is not modified.
+   *
+   * @return The text size in pixels, between the minimum and the maximum size.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public float fit(CharSequence text, int availableWidth, int availableHeight, TextPaint paint) {
+    Key key = new Key(text.toString(), availableWidth, availableHeight, paint);
+    Float size = cache.get(key);
+    if(size == null) {
+      size = Float.valueOf(search(key.text, availableWidth, availableHeight, paint));
+      cache.put(key, size);
+    }
+    return size.floatValue();
+  }
+
+  /**
+   * Fits the text of the given view into the given cell size, taking the view's compound paddings
+   * (including its icons) into account, and applies the resulting text size to the view if it
+   * differs from the current one.
+   *
+   * @param view The view.
+   * @param cellWidth The width of the cell.
+   * @param cellHeight The height of the cell.
+   *
+   * @return {@code true} if the text size of the view has been changed.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean apply(TextView view, int cellWidth, int cellHeight) {
+    CharSequence text = view.getText();
+    if((text == null) || (text.length() == 0)) {
+      return false;
+    }
+    int availableWidth = cellWidth - view.getCompoundPaddingLeft() - view.getCompoundPaddingRight();
+    int availableHeight = cellHeight - view.getCompoundPaddingTop()
+        - view.getCompoundPaddingBottom();
+    float size = fit(text, availableWidth, availableHeight, view.getPaint());
+    if(size == view.getTextSize()) {
+      return false;
+    }
+    view.setTextSize(TypedValue.COMPLEX_UNIT_PX, size);
+    return true;
+  }
+
+  /**
+   * Discards all cached results, e.g. after the fonts have changed.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void clear() {
+    cache.evictAll();
+  }
+
+  @Override
+  public long getMemorySize() {
+    return (long) cache.size() * ENTRY_BYTES;
+  }
+
+  @Override
+  public void trimMemoryTo(long bytes) {
+    cache.trimToSize((int) Math.min(Integer.MAX_VALUE, bytes / ENTRY_BYTES));
+  }
+
+  private int search(String text, int availableWidth, int availableHeight, TextPaint paint) {
+    workPaint.set(paint);
+    int low = minTextSize;
+    int high = maxTextSize;
+    int best = minTextSize;
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+      workPaint.setTextSize(mid);
+      if((workPaint.measureText(text) <= availableWidth)
+          && (workPaint.getFontSpacing() <= availableHeight)) {
+        best = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Cache key made of the text, the available space, and the properties of the paint affecting
+   * the width of the text.
+   */
+  private static final class Key {
+    final String text;
+    private final int width;
+    private final int height;
+    private final Typeface typeface;
+    private final int flags;
+    private final float textScaleX;
+
+    Key(String text, int width, int height, TextPaint paint) {
+      this.text = text;
+      this.width = width;
+      this.height = height;
+      this.typeface = paint.getTypeface();
+      this.flags = paint.getFlags();
+      this.textScaleX = paint.getTextScaleX();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return (width == other.width) && (height == other.height) && (flags == other.flags)
+          && (textScaleX == other.textScaleX) && (typeface == other.typeface)
+          && text.equals(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = text.hashCode();
+      result = (31 * result) + width;
+      result = (31 * result) + height;
+      result = (31 * result) + flags;
+      result = (31 * result) + Float.floatToIntBits(textScaleX);
+      result = (31 * result) + ((typeface != null) ? typeface.hashCode() : 0);
+      return result;
+    }
+  }
+}
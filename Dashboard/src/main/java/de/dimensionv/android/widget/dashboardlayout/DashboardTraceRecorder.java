@@ -0,0 +1,366 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Records adapter notifications, desired columns/rows and size changes of a
+// DashboardLayout to a compact binary trace.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.os.SystemClock;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>Records the workload of a {@link DashboardLayout} to a compact binary trace, which can be
+ * replayed later using the {@link DashboardTraceReplayer}.</p>
+ * <p>The recorder logs the notifications of the layout's {@link DashboardAdapter} (including the
+ * fine-grained item notifications), calls to {@link DashboardLayout#setDesiredCols(int)} and
+ * {@link DashboardLayout#setDesiredRows(int)}, and the size changes of the layout, each with the
+ * time elapsed since the previous event. Only the structure of the workload is recorded, not the
+ * content of the items.</p>
+ * <p>Each event consists of a type byte followed by variable-length encoded integers: the elapsed
+ * milliseconds and the arguments of the event. The trace starts with the magic number
+ * {@link #MAGIC} and the format version {@link #VERSION}.</p>
+ * <p>Recording happens on the main thread. Write errors stop the recording, and are reported by
+ * {@link #stop()}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardTraceRecorder {
+
+  /**
+   * The magic number at the start of each trace.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int MAGIC = 0x44425452;
+
+  /**
+   * The version of the trace format.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Recording started. Argument: the number of items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_START = 1;
+
+  /**
+   * The whole data set changed. Argument: the new number of items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_CHANGED = 2;
+
+  /**
+   * The data set became invalid. No arguments.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_INVALIDATED = 3;
+
+  /**
+   * An item has been inserted. Argument: the position.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_ITEM_INSERTED = 4;
+
+  /**
+   * An item has been removed. Argument: the position.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_ITEM_REMOVED = 5;
+
+  /**
+   * An item has been moved. Arguments: the former and the new position.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_ITEM_MOVED = 6;
+
+  /**
+   * A range of items changed. Arguments: the first position and the number of items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_ITEM_RANGE_CHANGED = 7;
+
+  /**
+   * The desired number of columns has been set. Argument: the number of columns.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_DESIRED_COLS = 8;
+
+  /**
+   * The desired number of rows has been set. Argument: the number of rows.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_DESIRED_ROWS = 9;
+
+  /**
+   * The size of the layout changed. Arguments: the new width and height.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int EVENT_SIZE = 10;
+
+  private final DataOutputStream out;
+  private DashboardLayout layout = null;
+  private DashboardAdapter<? extends DashboardItem> adapter = null;
+  private RecordingObserver observer = null;
+  private long lastEventTime = 0;
+  private IOException error = null;
+
+  /**
+   * Creates a {@code DashboardTraceRecorder} writing to the given stream, and writes the header
+   * of the trace.
+   *
+   * @param out The stream. It is closed by {@link #stop()}.
+   *
+   * @throws IOException If the header couldn't be written.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardTraceRecorder(OutputStream out) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.out.writeInt(MAGIC);
+    this.out.writeByte(VERSION);
+  }
+
+  /**
+   * Starts recording the workload of the given layout and its adapter. The layout's current size
+   * and desired columns and rows are recorded as well.
+   *
+   * @param layout The layout.
+   * @param adapter The adapter of the layout.
+   *
+   * @throws IllegalStateException If the recorder is already attached to a layout.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void attach(DashboardLayout layout, DashboardAdapter<? extends DashboardItem> adapter) {
+    if(this.layout != null) {
+      throw new IllegalStateException("Recorder is already attached to a layout");
+    }
+    this.layout = layout;
+    this.adapter = adapter;
+    lastEventTime = SystemClock.uptimeMillis();
+    record(EVENT_START, adapter.getCount());
+    record(EVENT_DESIRED_COLS, layout.getDesiredCols());
+    record(EVENT_DESIRED_ROWS, layout.getDesiredRows());
+    if((layout.getWidth() > 0) && (layout.getHeight() > 0)) {
+      record(EVENT_SIZE, layout.getWidth(), layout.getHeight());
+    }
+    observer = new RecordingObserver();
+    adapter.registerDataSetObserver(observer);
+    layout.setTraceRecorder(this);
+  }
+
+  /**
+   * Stops recording, and closes the stream.
+   *
+   * @throws IOException If writing the trace failed at any time.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void stop() throws IOException {
+    if(layout != null) {
+      layout.setTraceRecorder(null);
+      adapter.unregisterDataSetObserver(observer);
+      layout = null;
+      adapter = null;
+    }
+    try {
+      out.close();
+    } catch(IOException e) {
+      if(error == null) {
+        error = e;
+      }
+    }
+    if(error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Called by the {@link DashboardLayout} when its desired number of columns has been set.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  void recordDesiredCols(int desiredCols) {
+    record(EVENT_DESIRED_COLS, desiredCols);
+  }
+
+  /**
+   * Called by the {@link DashboardLayout} when its desired number of rows has been set.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  void recordDesiredRows(int desiredRows) {
+    record(EVENT_DESIRED_ROWS, desiredRows);
+  }
+
+  /**
+   * Called by the {@link DashboardLayout} when its size changed.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  void recordSize(int width, int height) {
+    record(EVENT_SIZE, width, height);
+  }
+
+  private void record(int type, int... args) {
+    if(error != null) {
+      return;
+    }
+    try {
+      long now = SystemClock.uptimeMillis();
+      out.writeByte(type);
+      writeVarInt(out, (int) Math.min(Integer.MAX_VALUE, now - lastEventTime));
+      for(int arg : args) {
+        writeVarInt(out, arg);
+      }
+      lastEventTime = now;
+    } catch(IOException e) {
+      error = e;
+    }
+  }
+
+  /**
+   * Writes a non-negative integer using 7 bits per byte, least significant group first.
+   */
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    value = Math.max(0, value);
+    while((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /**
+   * Reads an integer written by {@link #writeVarInt(DataOutputStream, int)}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      if(shift > 28) {
+        throw new IOException("Malformed trace: integer too long");
+      }
+      b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Records the notifications of the adapter.
+   */
+  private final class RecordingObserver extends DashboardDataSetObserver {
+
+    RecordingObserver() {
+      // all callbacks are overridden, so the observer is not bound to a layout
+      super(null);
+    }
+
+    @Override
+    public void onChanged() {
+      record(EVENT_CHANGED, adapter.getCount());
+    }
+
+    @Override
+    public void onInvalidated() {
+      record(EVENT_INVALIDATED);
+    }
+
+    @Override
+    public void onItemInserted(int position) {
+      record(EVENT_ITEM_INSERTED, position);
+    }
+
+    @Override
+    public void onItemRemoved(int position) {
+      record(EVENT_ITEM_REMOVED, position);
+    }
+
+    @Override
+    public void onItemMoved(int fromPosition, int toPosition) {
+      record(EVENT_ITEM_MOVED, fromPosition, toPosition);
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+      record(EVENT_ITEM_RANGE_CHANGED, positionStart, itemCount);
+    }
+  }
+}
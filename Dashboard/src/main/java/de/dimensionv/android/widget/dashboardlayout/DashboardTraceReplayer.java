@@ -0,0 +1,407 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Replays a dashboard trace headlessly and reports measure/layout/bind counts
+// and timings per step.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Replays a trace written by the {@link DashboardTraceRecorder} against a fresh
+ * {@link DashboardLayout}, and reports the work done for each step.</p>
+ * <p>The replayer doesn't need a window: it drives the measure and layout passes itself after
+ * each event that requested one, and stands in synthetic items for the recorded ones. It can
+ * therefore run wherever a {@code Context} is available, e.g. in a Robolectric test on a
+ * development machine, which turns traces recorded in the field into reproducible
+ * benchmarks.</p>
+ * <p>For each event, the {@link Step} reports the number of measure passes, layout passes and
+ * views bound, and the time spent measuring and laying out. The recorded delays between the events
+ * are not reproduced.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardTraceReplayer {
+
+  private final Context context;
+
+  /**
+   * Creates a {@code DashboardTraceReplayer}.
+   *
+   * @param context The context used for creating the layout and the views of the items.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardTraceReplayer(Context context) {
+    this.context = context;
+  }
+
+  /**
+   * Replays the given trace.
+   *
+   * @param in The stream containing the trace. It is not closed.
+   *
+   * @return The steps of the replay, one per event of the trace.
+   *
+   * @throws IOException If the trace couldn't be read, or is malformed.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public List<Step> replay(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if(data.readInt() != DashboardTraceRecorder.MAGIC) {
+      throw new IOException("Not a dashboard trace");
+    }
+    int version = data.readUnsignedByte();
+    if(version != DashboardTraceRecorder.VERSION) {
+      throw new IOException("Unsupported trace version " + version);
+    }
+
+    Session session = new Session(context);
+    ArrayList<Step> steps = new ArrayList<Step>();
+    long time = 0;
+    while(true) {
+      int type = data.read();
+      if(type < 0) {
+        break;
+      }
+      try {
+        time += DashboardTraceRecorder.readVarInt(data);
+        steps.add(session.apply(type, time, data));
+      } catch(EOFException e) {
+        throw new IOException("Truncated trace");
+      }
+    }
+    return Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * The work done for a single event of the trace.
+   *
+   * @author Volkmar Seifert
+   * @version 1.0
+   * @since API 1.1.0
+   */
+  public static final class Step {
+    private final int type;
+    private final long time;
+    private final int measures;
+    private final int layouts;
+    private final int binds;
+    private final long measureNanos;
+    private final long layoutNanos;
+
+    Step(int type, long time, int measures, int layouts, int binds, long measureNanos,
+         long layoutNanos) {
+      this.type = type;
+      this.time = time;
+      this.measures = measures;
+      this.layouts = layouts;
+      this.binds = binds;
+      this.measureNanos = measureNanos;
+      this.layoutNanos = layoutNanos;
+    }
+
+    /**
+     * Returns the type of the event, one of the {@code EVENT_*} constants of the
+     * {@link DashboardTraceRecorder}.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public int getType() {
+      return type;
+    }
+
+    /**
+     * Returns the time of the event in milliseconds, relative to the start of the recording.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public long getTime() {
+      return time;
+    }
+
+    /**
+     * Returns the number of measure passes of the layout.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public int getMeasureCount() {
+      return measures;
+    }
+
+    /**
+     * Returns the number of layout passes of the layout.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public int getLayoutCount() {
+      return layouts;
+    }
+
+    /**
+     * Returns the number of views bound by the adapter.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public int getBindCount() {
+      return binds;
+    }
+
+    /**
+     * Returns the time spent measuring, in nanoseconds.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public long getMeasureNanos() {
+      return measureNanos;
+    }
+
+    /**
+     * Returns the time spent laying out, in nanoseconds.
+     *
+     * @since Class 1.0
+     * @since API 1.1.0
+     */
+    public long getLayoutNanos() {
+      return layoutNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "Step[type=" + type + ", time=" + time + "ms, measures=" + measures + ", layouts="
+          + layouts + ", binds=" + binds + ", measure=" + (measureNanos / 1000) + "us, layout="
+          + (layoutNanos / 1000) + "us]";
+    }
+  }
+
+  /**
+   * The state of a single replay: the layout, the synthetic items and the counters.
+   */
+  private static final class Session {
+    private final CountingLayout layout;
+    private final LayoutInflater inflater;
+    private final ArrayList<DashboardItem> items = new ArrayList<DashboardItem>();
+    private CountingAdapter adapter = null;
+    private long nextId = 0;
+    private int width = 0;
+    private int height = 0;
+
+    Session(Context context) {
+      layout = new CountingLayout(context);
+      inflater = LayoutInflater.from(context);
+    }
+
+    Step apply(int type, long time, DataInputStream data) throws IOException {
+      layout.resetCounters();
+      int binds = (adapter != null) ? adapter.binds : 0;
+      boolean forceLayout = false;
+
+      switch(type) {
+        case DashboardTraceRecorder.EVENT_START:
+          resize(DashboardTraceRecorder.readVarInt(data));
+          adapter = new CountingAdapter(items, inflater);
+          binds = 0;
+          layout.setAdapter(adapter);
+          break;
+        case DashboardTraceRecorder.EVENT_CHANGED:
+          resize(DashboardTraceRecorder.readVarInt(data));
+          requireAdapter().notifyDataSetChanged();
+          break;
+        case DashboardTraceRecorder.EVENT_INVALIDATED:
+          requireAdapter().notifyDataSetInvalidated();
+          break;
+        case DashboardTraceRecorder.EVENT_ITEM_INSERTED: {
+          int position = readPosition(data, items.size() + 1);
+          items.add(position, createItem());
+          requireAdapter().notifyItemInserted(position);
+          break;
+        }
+        case DashboardTraceRecorder.EVENT_ITEM_REMOVED: {
+          int position = readPosition(data, items.size());
+          items.remove(position);
+          requireAdapter().notifyItemRemoved(position);
+          break;
+        }
+        case DashboardTraceRecorder.EVENT_ITEM_MOVED: {
+          int from = readPosition(data, items.size());
+          int to = readPosition(data, items.size());
+          items.add(to, items.remove(from));
+          requireAdapter().notifyItemMoved(from, to);
+          break;
+        }
+        case DashboardTraceRecorder.EVENT_ITEM_RANGE_CHANGED: {
+          int start = readPosition(data, items.size());
+          int count = DashboardTraceRecorder.readVarInt(data);
+          requireAdapter().notifyItemRangeChanged(start, count);
+          break;
+        }
+        case DashboardTraceRecorder.EVENT_DESIRED_COLS:
+          layout.setDesiredCols(DashboardTraceRecorder.readVarInt(data));
+          forceLayout = true;
+          break;
+        case DashboardTraceRecorder.EVENT_DESIRED_ROWS:
+          layout.setDesiredRows(DashboardTraceRecorder.readVarInt(data));
+          forceLayout = true;
+          break;
+        case DashboardTraceRecorder.EVENT_SIZE:
+          width = DashboardTraceRecorder.readVarInt(data);
+          height = DashboardTraceRecorder.readVarInt(data);
+          forceLayout = true;
+          break;
+        default:
+          throw new IOException("Unknown trace event " + type);
+      }
+
+      if((width > 0) && (height > 0) && (forceLayout || layout.isLayoutRequested())) {
+        // without this, measuring with unchanged specs would be skipped by the measure cache
+        layout.forceLayout();
+        layout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, width, height);
+      }
+
+      return new Step(type, time, layout.measures, layout.layouts,
+          ((adapter != null) ? adapter.binds : 0) - binds, layout.measureNanos,
+          layout.layoutNanos);
+    }
+
+    private CountingAdapter requireAdapter() throws IOException {
+      if(adapter == null) {
+        throw new IOException("Malformed trace: event before start");
+      }
+      return adapter;
+    }
+
+    private int readPosition(DataInputStream data, int limit) throws IOException {
+      int position = DashboardTraceRecorder.readVarInt(data);
+      if(position >= limit) {
+        throw new IOException("Malformed trace: position " + position + " out of range");
+      }
+      return position;
+    }
+
+    private void resize(int count) {
+      while(items.size() > count) {
+        items.remove(items.size() - 1);
+      }
+      while(items.size() < count) {
+        items.add(createItem());
+      }
+    }
+
+    private DashboardItem createItem() {
+      long id = nextId++;
+      return new SimpleDashboardItem(id, "Item " + id, null, null, true);
+    }
+  }
+
+  /**
+   * {@link DashboardLayout} counting and timing its measure and layout passes.
+   */
+  private static final class CountingLayout extends DashboardLayout {
+    int measures;
+    int layouts;
+    long measureNanos;
+    long layoutNanos;
+
+    CountingLayout(Context context) {
+      super(context);
+    }
+
+    void resetCounters() {
+      measures = 0;
+      layouts = 0;
+      measureNanos = 0;
+      layoutNanos = 0;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+      long start = System.nanoTime();
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+      measureNanos += System.nanoTime() - start;
+      measures++;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+      long start = System.nanoTime();
+      super.onLayout(changed, left, top, right, bottom);
+      layoutNanos += System.nanoTime() - start;
+      layouts++;
+    }
+  }
+
+  /**
+   * {@link DashboardAdapter} counting the views it binds.
+   */
+  private static final class CountingAdapter extends DashboardAdapter<DashboardItem> {
+    int binds = 0;
+
+    CountingAdapter(List<DashboardItem> items, LayoutInflater inflater) {
+      super(items, inflater, null);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+      binds++;
+      return super.getView(position, convertView, parent);
+    }
+  }
+}
@@ -0,0 +1,204 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Pool of views removed from a DashboardLayout, kept per view type for reuse.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * <p>Pool of views that have been removed from a {@link DashboardLayout}, kept for reuse.</p>
+ * <p>The views are kept in separate scrap lists per view type, so a view is only handed out again
+ * for an item of the same type. Each scrap list holds a limited number of views, views exceeding
+ * that limit are discarded.</p>
+ * <p>As a {@link DashboardMemoryConsumer}, the pool can be trimmed by a
+ * {@link DashboardMemoryManager}, usually in the tier {@link DashboardMemoryManager#TIER_VIEWS}.</p>
+ * <p>The pool is not thread-safe, and is meant to be used from the main thread only.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DashboardViewPool implements DashboardMemoryConsumer {
+
+  /**
+   * The default maximum number of views kept per view type.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_MAX_SCRAP = 32;
+
+  private final SparseArray<ArrayList<View>> scrap = new SparseArray<ArrayList<View>>();
+  private final int maxScrap;
+
+  /**
+   * Creates a new, empty pool keeping at most {@link #DEFAULT_MAX_SCRAP} views per view type.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardViewPool() {
+    this(DEFAULT_MAX_SCRAP);
+  }
+
+  /**
+   * Creates a new, empty pool.
+   *
+   * @param maxScrap The maximum number of views kept per view type.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardViewPool(int maxScrap) {
+    this.maxScrap = maxScrap;
+  }
+
+  /**
+   * Returns a view to the pool. The view must not have a parent anymore.
+   *
+   * @param viewType The view type the adapter reported for the view.
+   * @param view The view.
+   *
+   * @return {@code true} if the view was kept, {@code false} if the scrap list for the view type
+   *         is full.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean put(int viewType, View view) {
+    ArrayList<View> views = scrap.get(viewType);
+    if(views == null) {
+      views = new ArrayList<View>();
+      scrap.put(viewType, views);
+    }
+    if(views.size() >= maxScrap) {
+      return false;
+    }
+    views.add(view);
+    return true;
+  }
+
+  /**
+   * Takes a view of the given type from the pool.
+   *
+   * @param viewType The view type.
+   *
+   * @return The view, or {@code null} if there is no view of that type in the pool.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public View get(int viewType) {
+    ArrayList<View> views = scrap.get(viewType);
+    if((views == null) || views.isEmpty()) {
+      return null;
+    }
+    return views.remove(views.size() - 1);
+  }
+
+  /**
+   * Returns the number of views in the pool, across all view types.
+   *
+   * @return The number of views.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int size() {
+    int size = 0;
+    for(int i = 0; i < scrap.size(); i++) {
+      size += scrap.valueAt(i).size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the estimated number of bytes of the views in the pool, including their icons.
+   *
+   * @see DashboardMemoryConsumer#getMemorySize()
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public long getMemorySize() {
+    long bytes = 0;
+    for(int i = 0; i < scrap.size(); i++) {
+      for(View view : scrap.valueAt(i)) {
+        bytes += DashboardMemoryManager.estimateBytes(view);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Discards views until the estimated number of bytes of the remaining views is at most the
+   * given number.
+   *
+   * @see DashboardMemoryConsumer#trimMemoryTo(long)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public void trimMemoryTo(long bytes) {
+    if(bytes <= 0) {
+      clear();
+      return;
+    }
+    long size = getMemorySize();
+    for(int i = 0; (i < scrap.size()) && (size > bytes); i++) {
+      ArrayList<View> views = scrap.valueAt(i);
+      while(!views.isEmpty() && (size > bytes)) {
+        size -= DashboardMemoryManager.estimateBytes(views.remove(views.size() - 1));
+      }
+    }
+  }
+
+  /**
+   * Discards all views in the pool.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void clear() {
+    scrap.clear();
+  }
+}
@@ -0,0 +1,145 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Adapter displaying a compiled DashboardDefinition, creating the items
+// lazily.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View.OnClickListener;
+
+import java.util.AbstractList;
+
+/**
+ * <p>A {@link DashboardAdapter} displaying a compiled {@link DashboardDefinition}.</p>
+ * <p>The items are created lazily: a {@link SimpleDashboardItem} is only created when its position
+ * is accessed for the first time, usually when it is bound to a view, and is kept from then on, so
+ * changes to the item (e.g. its state or {@code OnClickListener}) persist. The IDs are read
+ * straight from the definition, without creating any items.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DefinitionDashboardAdapter extends DashboardAdapter<DashboardItem> {
+
+  private final DefinitionList items;
+
+  /**
+   * Creates a {@code DefinitionDashboardAdapter} for the given definition.
+   *
+   * @param definition The definition to display.
+   * @param inflater The inflater for creating the views. Its context is used to load the icons.
+   * @param onClickListener The listener for items without their own {@code OnClickListener}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DefinitionDashboardAdapter(DashboardDefinition definition, LayoutInflater inflater,
+                                    OnClickListener onClickListener) {
+    this(new DefinitionList(definition, inflater.getContext()), inflater, onClickListener);
+  }
+
+  private DefinitionDashboardAdapter(DefinitionList items, LayoutInflater inflater,
+                                     OnClickListener onClickListener) {
+    super(items, inflater, onClickListener);
+    this.items = items;
+  }
+
+  @Override
+  public boolean canMoveItems() {
+    return false;
+  }
+
+  @Override
+  public int getCount() {
+    return items.definition.getCount();
+  }
+
+  @Override
+  public long getItemId(int position) {
+    return items.definition.getID(position);
+  }
+
+  @Override
+  public boolean hasStableIds() {
+    return true;
+  }
+
+  /**
+   * Returns the definition displayed by this adapter.
+   *
+   * @return The definition.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DashboardDefinition getDefinition() {
+    return items.definition;
+  }
+
+  /**
+   * Read-only list creating the items of the definition on first access.
+   */
+  private static final class DefinitionList extends AbstractList<DashboardItem> {
+    final DashboardDefinition definition;
+    private final Context context;
+    private final SparseArray<DashboardItem> created = new SparseArray<DashboardItem>();
+
+    DefinitionList(DashboardDefinition definition, Context context) {
+      this.definition = definition;
+      this.context = context;
+    }
+
+    @Override
+    public DashboardItem get(int location) {
+      DashboardItem item = created.get(location);
+      if(item == null) {
+        item = new SimpleDashboardItem(definition.getID(location), definition.getText(location),
+            definition.getIconDrawable(location, context), null, definition.isEnabled(location));
+        created.put(location, item);
+      }
+      return item;
+    }
+
+    @Override
+    public int size() {
+      return definition.getCount();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// ContainerDashboardItem reading its data from the content-object on
+// demand instead of copying it.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * <p>{@link ContainerDashboardItem} that doesn't copy any data out of its content-object, but
+ * reads ID and text from it whenever they are requested.</p>
+ * <p>The icons are only fetched from the content-object when the item is bound to a view, and
+ * only the icon for the current state. Once fetched, an icon is kept until the item is
+ * invalidated. Whenever the content-object changes, {@link #invalidate()} has to be called before
+ * notifying the adapter, e.g. using {@link DashboardAdapter#notifyItemChanged(int)}, so the
+ * changed icons are fetched again when the item gets rebound. Setting another content-object
+ * using {@link #setContent(DashboardItemContent)} invalidates the item automatically.</p>
+ * <p>Compared to the {@code ContainerDashboardItem}, this saves holding a copy of the text and
+ * resolving icons of items that never get shown, which adds up for large catalogs.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class DelegatingDashboardItem<T extends DashboardItemContent>
+    extends ContainerDashboardItem<T> {
+
+  private static final int ICON_ENABLED = 1;
+  private static final int ICON_DISABLED = 2;
+
+  /**
+   * The icons fetched from the content-object since the last invalidation.
+   */
+  private int fetchedIcons = 0;
+
+  /**
+   * Creates a new, enabled {@code DelegatingDashboardItem} for the given content-object.
+   *
+   * @param content The content-object. Must not be {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DelegatingDashboardItem(T content) {
+    this(content, true);
+  }
+
+  /**
+   * Creates a new {@code DelegatingDashboardItem} for the given content-object.
+   *
+   * @param content The content-object. Must not be {@code null}.
+   * @param enabled The state that defines whether the item is active and clickable ({@code true}) or not ({@code false}).
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public DelegatingDashboardItem(T content, boolean enabled) {
+    super(0, null, null, null, content, enabled);
+  }
+
+  @Override
+  public long getID() {
+    return content.getID();
+  }
+
+  @Override
+  public CharSequence getText() {
+    return content.getText();
+  }
+
+  /**
+   * Returns the icon for the current state, fetching it from the content-object if it hasn't been
+   * fetched since the last invalidation.
+   *
+   * @see DashboardItem#getIconDrawable()
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public Drawable getIconDrawable() {
+    if(!isEnabled()) {
+      if((fetchedIcons & ICON_DISABLED) == 0) {
+        iconDisabled = content.getIconDrawableDisabled();
+        fetchedIcons |= ICON_DISABLED;
+      }
+      if(iconDisabled != null) {
+        return iconDisabled;
+      }
+    }
+    if((fetchedIcons & ICON_ENABLED) == 0) {
+      iconEnabled = content.getIconDrawableEnabled();
+      fetchedIcons |= ICON_ENABLED;
+    }
+    return iconEnabled;
+  }
+
+  /**
+   * Sets another content-object for this item, and invalidates it.
+   *
+   * @param content The content-object. Must not be {@code null}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public void setContent(T content) {
+    this.content = content;
+    invalidate();
+  }
+
+  /**
+   * Drops the icons fetched from the content-object, so they are fetched again the next time the
+   * item gets bound. Has to be called whenever the content-object changes.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void invalidate() {
+    fetchedIcons = 0;
+    iconEnabled = null;
+    iconDisabled = null;
+  }
+}
@@ -0,0 +1,478 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Adapter loading its items page by page on a background thread, keeping only
+// a bounded window of pages in memory.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.View.OnClickListener;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>A {@link DashboardAdapter} that loads its items page by page from a
+ * {@link DashboardPagedSource}, instead of holding all of them in memory.</p>
+ * <p>Pages are loaded on a background {@link Executor} and kept in a bounded window. Pages are
+ * only requested for the range of positions reported through {@link #setVisibleRange(int, int)},
+ * initially the start of the data set, plus the pages around it. Binding a position never requests
+ * anything by itself. Positions whose page is not loaded are bound to a placeholder item, and
+ * rebound as soon as their page arrives. The number of items is queried on the background thread
+ * as well, so the adapter reports no items until it is known. When the least recently used pages
+ * beyond the window are dropped, their positions are rebound to the placeholder, so no view keeps
+ * their items alive. The pages of the visible range are never dropped, though. Hence, the memory
+ * used for the items is proportional to the size of the window, not to the size of the data
+ * set.</p>
+ * <p>The {@link DashboardPager} reports the range of its current page by itself. When the adapter
+ * is used with a plain {@link DashboardLayout} instead, the visible range has to be reported
+ * whenever it changes, e.g. while scrolling.</p>
+ * <p>All methods of this adapter have to be called on the main thread.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class PagedDashboardAdapter extends DashboardAdapter<DashboardItem> {
+
+  /**
+   * Default number of items per page.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_PAGE_SIZE = 50;
+
+  /**
+   * Default number of pages kept in memory.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public static final int DEFAULT_MAX_PAGES = 5;
+
+  private static ExecutorService defaultExecutor = null;
+
+  private final PageWindow window;
+
+  /**
+   * Creates a {@code PagedDashboardAdapter} with the default page size and window, loading its
+   * pages on a shared background thread.
+   *
+   * @param source The data source.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for items without their own {@code OnClickListener}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public PagedDashboardAdapter(DashboardPagedSource source, LayoutInflater inflater,
+                               OnClickListener onClickListener) {
+    this(source, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, getDefaultExecutor(), inflater,
+        onClickListener);
+  }
+
+  /**
+   * Creates a {@code PagedDashboardAdapter}.
+   *
+   * @param source The data source.
+   * @param pageSize The number of items per page.
+   * @param maxPages The maximum number of pages kept in memory. Must be at least {@code 3}, so the
+   *                 pages around the current one can be kept as well.
+   * @param executor The executor the pages are loaded on.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for items without their own {@code OnClickListener}.
+   *
+   * @throws IllegalArgumentException If {@code pageSize} is smaller than {@code 1}, or
+   *                                  {@code maxPages} is smaller than {@code 3}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public PagedDashboardAdapter(DashboardPagedSource source, int pageSize, int maxPages,
+                               Executor executor, LayoutInflater inflater,
+                               OnClickListener onClickListener) {
+    this(new PageWindow(source, pageSize, maxPages, executor), inflater, onClickListener);
+  }
+
+  private PagedDashboardAdapter(PageWindow window, LayoutInflater inflater,
+                                OnClickListener onClickListener) {
+    super(new PagedList(window), inflater, onClickListener);
+    this.window = window;
+    window.adapter = this;
+    loadCount();
+  }
+
+  @Override
+  public boolean canMoveItems() {
+    return false;
+  }
+
+  @Override
+  public int getCount() {
+    return window.count;
+  }
+
+  @Override
+  public Object getItem(int position) {
+    return window.getItem(position);
+  }
+
+  /**
+   * Returns the ID of the item at the given position. Positions whose page has not been loaded
+   * get an ID of their own, counted up from {@code Long.MIN_VALUE} by position, as they all share
+   * the same placeholder item.
+   *
+   * @see DashboardAdapter#getItemId(int)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public long getItemId(int position) {
+    DashboardItem item = window.getLoadedItem(position);
+    return (item != null) ? item.getID() : (Long.MIN_VALUE + position);
+  }
+
+  /**
+   * Informs the adapter about the range of positions currently visible, so all pages of the range
+   * and the ones around it are loaded in advance. The pages of the range are never dropped.
+   *
+   * @param firstPosition The first visible position.
+   * @param count The number of visible positions.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setVisibleRange(int firstPosition, int count) {
+    window.firstVisible = firstPosition;
+    window.visibleCount = count;
+    window.requestVisible();
+  }
+
+  /**
+   * Checks whether the item at the given position has been loaded already.
+   *
+   * @param position The position.
+   *
+   * @return {@code true} if the item is loaded, {@code false} if it's represented by the
+   *         placeholder.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean isLoaded(int position) {
+    return window.getLoadedItem(position) != null;
+  }
+
+  /**
+   * Sets the item that is bound to positions whose page has not been loaded yet. By default, this
+   * is a disabled item without text and icon.
+   *
+   * @param placeholder The placeholder item.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setPlaceholder(DashboardItem placeholder) {
+    window.placeholder = placeholder;
+  }
+
+  /**
+   * Sets the number of pages to be prefetched on either side of the visible range.
+   *
+   * @param pages The number of pages. Defaults to {@code 1}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void setPrefetchDistance(int pages) {
+    window.prefetchDistance = Math.max(0, Math.min(pages, (window.maxPages - 1) / 2));
+  }
+
+  /**
+   * Drops all loaded pages, queries the number of items again and notifies the observers that the
+   * whole data set has changed. Pages still being loaded are discarded when they arrive.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void refresh() {
+    window.reset();
+    loadCount();
+  }
+
+  /**
+   * Queries the number of items on the background thread, then requests the visible pages and
+   * notifies the observers. The result is discarded if a refresh happened in the meantime.
+   */
+  private void loadCount() {
+    final int generation = window.generation;
+    window.executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if(generation != window.generation) {
+          return;
+        }
+        final int count = window.source.getCount();
+        window.mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            if(generation == window.generation) {
+              window.count = count;
+              window.requestVisible();
+              notifyDataSetChanged();
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private static synchronized ExecutorService getDefaultExecutor() {
+    if(defaultExecutor == null) {
+      defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "DashboardPageLoader");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * The window of loaded pages, including the bookkeeping of the pages being loaded.
+   */
+  private static final class PageWindow {
+    final DashboardPagedSource source;
+    final int pageSize;
+    final int maxPages;
+    final Executor executor;
+    final Handler mainHandler = new Handler(Looper.getMainLooper());
+    final LinkedHashMap<Integer, DashboardItem[]> pages;
+    final HashSet<Integer> pending = new HashSet<Integer>();
+
+    PagedDashboardAdapter adapter = null;
+    DashboardItem placeholder = new SimpleDashboardItem(View.NO_ID, "", null, null, false);
+    int prefetchDistance = 1;
+    int count = 0;
+    volatile int generation = 0;
+    int firstVisible = 0;
+    int visibleCount = 1;
+
+    PageWindow(DashboardPagedSource source, int pageSize, int maxPages, Executor executor) {
+      if(pageSize < 1) {
+        throw new IllegalArgumentException("pageSize must be at least 1, but is " + pageSize);
+      }
+      if(maxPages < 3) {
+        throw new IllegalArgumentException("maxPages must be at least 3, but is " + maxPages);
+      }
+      this.source = source;
+      this.pageSize = pageSize;
+      this.maxPages = maxPages;
+      this.executor = executor;
+      this.pages = new LinkedHashMap<Integer, DashboardItem[]>(maxPages + 1, 0.75f, true);
+    }
+
+    DashboardItem getItem(int position) {
+      if((position < 0) || (position >= count)) {
+        throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + count);
+      }
+      DashboardItem item = getLoadedItem(position);
+      return (item != null) ? item : placeholder;
+    }
+
+    DashboardItem getLoadedItem(int position) {
+      DashboardItem[] page = pages.get(position / pageSize);
+      if(page == null) {
+        return null;
+      }
+      int index = position % pageSize;
+      return (index < page.length) ? page[index] : null;
+    }
+
+    /**
+     * Requests all pages of the visible range, then the ones around it, nearest first.
+     */
+    void requestVisible() {
+      if(count == 0) {
+        return;
+      }
+      int firstPage = firstVisiblePage();
+      int lastPage = lastVisiblePage();
+      int finalPage = (count - 1) / pageSize;
+      for(int pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+        request(pageIndex);
+      }
+      for(int distance = 1; distance <= prefetchDistance; distance++) {
+        if((lastPage + distance) <= finalPage) {
+          request(lastPage + distance);
+        }
+        if((firstPage - distance) >= 0) {
+          request(firstPage - distance);
+        }
+      }
+    }
+
+    private int firstVisiblePage() {
+      return Math.max(0, Math.min(firstVisible, count - 1)) / pageSize;
+    }
+
+    private int lastVisiblePage() {
+      int lastPosition = firstVisible + Math.max(1, visibleCount) - 1;
+      return Math.max(0, Math.min(lastPosition, count - 1)) / pageSize;
+    }
+
+    private void request(final int pageIndex) {
+      Integer key = Integer.valueOf(pageIndex);
+      if((pages.get(key) != null) || pending.contains(key)) {
+        return;
+      }
+      pending.add(key);
+      final int generation = this.generation;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          if(generation != PageWindow.this.generation) {
+            // outdated by a refresh in the meantime
+            return;
+          }
+          int offset = pageIndex * pageSize;
+          List<? extends DashboardItemContent> contents = source.loadPage(offset, pageSize);
+          final DashboardItem[] page = new DashboardItem[contents.size()];
+          int index = 0;
+          for(DashboardItemContent content : contents) {
+            page[index++] = new ContainerDashboardItem<DashboardItemContent>(content, true, true);
+          }
+          mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+              onPageLoaded(generation, pageIndex, page);
+            }
+          });
+        }
+      });
+    }
+
+    private void onPageLoaded(int generation, int pageIndex, DashboardItem[] page) {
+      if(generation != this.generation) {
+        return;
+      }
+      Integer key = Integer.valueOf(pageIndex);
+      pending.remove(key);
+      pages.put(key, page);
+      notifyPageChanged(pageIndex);
+      trim();
+    }
+
+    /**
+     * Drops the least recently used pages beyond the window, sparing the visible range and the
+     * pages around it, and has the positions of the dropped pages rebound to the placeholder.
+     */
+    private void trim() {
+      int firstSpared = firstVisiblePage() - prefetchDistance;
+      int lastSpared = lastVisiblePage() + prefetchDistance;
+      ArrayList<Integer> dropped = null;
+      Iterator<Map.Entry<Integer, DashboardItem[]>> iterator = pages.entrySet().iterator();
+      while((pages.size() > maxPages) && iterator.hasNext()) {
+        Integer pageIndex = iterator.next().getKey();
+        if((pageIndex.intValue() < firstSpared) || (pageIndex.intValue() > lastSpared)) {
+          iterator.remove();
+          if(dropped == null) {
+            dropped = new ArrayList<Integer>();
+          }
+          dropped.add(pageIndex);
+        }
+      }
+      if(dropped != null) {
+        for(Integer pageIndex : dropped) {
+          notifyPageChanged(pageIndex.intValue());
+        }
+      }
+    }
+
+    private void notifyPageChanged(int pageIndex) {
+      int offset = pageIndex * pageSize;
+      int changed = Math.min(pageSize, count - offset);
+      if(changed > 0) {
+        adapter.notifyItemRangeChanged(offset, changed);
+      }
+    }
+
+    void reset() {
+      generation++;
+      pages.clear();
+      pending.clear();
+    }
+  }
+
+  /**
+   * Read-only list view of the adapter's items, as returned by {@link #getList()}. Positions
+   * whose page is not loaded are represented by the placeholder.
+   */
+  private static final class PagedList extends AbstractList<DashboardItem> {
+    private final PageWindow window;
+
+    PagedList(PageWindow window) {
+      this.window = window;
+    }
+
+    @Override
+    public DashboardItem get(int location) {
+      return window.getItem(location);
+    }
+
+    @Override
+    public int size() {
+      return window.count;
+    }
+  }
+}
@@ -0,0 +1,569 @@
+// ////////////////////////////////////////////////////////////////////////////
+//
+// Author: Volkmar Seifert
+// Description:
+// Adapter keeping its items sorted and grouped into sections, each of them
+// preceded by a header.
+//
+// ////////////////////////////////////////////////////////////////////////////
+// License:
+// // // // // // // // // // // // // // // // // // // //
+// Copyright 2011-2014 Volkmar Seifert <vs@dimensionv.de>.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY VOLKMAR SEIFERT AND CONTRIBUTORS ``AS IS''
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE FOUNDATION OR CONTRIBUTORS BE LIABLE
+// FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+// DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+// CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+// OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH
+// DAMAGE.
+//
+// The views and conclusions contained in the software and documentation are
+// those of the authors and should not be interpreted as representing official
+// policies, either expressed or implied, of Volkmar Seifert <vs@dimensionv.de>.
+// ////////////////////////////////////////////////////////////////////////////
+package de.dimensionv.android.widget.dashboardlayout;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.View.OnClickListener;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>A {@link DashboardAdapter} that keeps its items sorted and grouped into sections. Each
+ * section is preceded by a header, which the {@link DashboardLayout} places on a row of its own
+ * above the items of the section.</p>
+ * <p>The order of the items is defined by a {@link Comparator}, the section an item belongs to by
+ * a {@link SectionNamer}. The comparator must order the items of a section contiguously, which is
+ * easiest achieved by comparing the section first, and the sort key (e.g. priority or name)
+ * second.</p>
+ * <p>Items should only be added, removed or updated through the methods of this adapter, e.g.
+ * {@link #add(DashboardItem)}, {@link #remove(DashboardItem)} and
+ * {@link #onItemKeyChanged(DashboardItem)}. These keep the sorted structure intact and notify the
+ * {@code DashboardLayout} about the single insert, removal or move that happened, so neither the
+ * list needs to be sorted again nor all the views of the layout need to be rebuilt.</p>
+ * <p>Adapter positions include the headers. Use {@link #getItemIndex(int)} and
+ * {@link #getPosition(int)} to convert between adapter positions and indices into the list
+ * returned by {@link #getList()}.</p>
+ *
+ * @author Volkmar Seifert
+ * @version 1.0
+ * @since API 1.1.0
+ */
+public class SectionedDashboardAdapter<T extends DashboardItem> extends DashboardAdapter<T> {
+
+  /**
+   * Interface for determining the section an item belongs to.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public interface SectionNamer<T> {
+    /**
+     * Returns the title of the section the given item belongs to. Items with equal titles belong
+     * to the same section.
+     *
+     * @param item The item.
+     *
+     * @return The title of the item's section. Must not be {@code null}.
+     */
+    public CharSequence getSectionTitle(T item);
+  }
+
+  /**
+   * A section, consisting of its title and the number of items it contains.
+   */
+  private static final class Section {
+    final CharSequence title;
+    /** The ID of the section's header, which stays the same while sections come and go. */
+    final long headerId;
+    int count = 0;
+
+    Section(CharSequence title, long headerId) {
+      this.title = title;
+      this.headerId = headerId;
+    }
+
+    boolean matches(CharSequence other) {
+      return title.toString().equals(other.toString());
+    }
+  }
+
+  private final ArrayList<T> items;
+  private final ArrayList<Section> sections = new ArrayList<Section>();
+  private long nextHeaderId = 0;
+  private final Comparator<? super T> comparator;
+  private final SectionNamer<? super T> sectionNamer;
+
+  /**
+   * Creates a {@code SectionedDashboardAdapter} from the given items, which are sorted using the
+   * given comparator and grouped into sections using the given section-namer.
+   *
+   * @param items The initial items. The collection is copied, not referenced.
+   * @param comparator The comparator defining the order of the items.
+   * @param sectionNamer The section-namer defining the sections of the items.
+   * @param inflater The inflater for creating the views.
+   * @param onClickListener The listener for items without their own {@code OnClickListener}.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public SectionedDashboardAdapter(Collection<? extends T> items, Comparator<? super T> comparator,
+                                   SectionNamer<? super T> sectionNamer, LayoutInflater inflater,
+                                   OnClickListener onClickListener) {
+    this(new ArrayList<T>(items), comparator, sectionNamer, inflater, onClickListener);
+  }
+
+  private SectionedDashboardAdapter(ArrayList<T> items, Comparator<? super T> comparator,
+                                    SectionNamer<? super T> sectionNamer, LayoutInflater inflater,
+                                    OnClickListener onClickListener) {
+    super(items, inflater, onClickListener);
+    this.items = items;
+    this.comparator = comparator;
+    this.sectionNamer = sectionNamer;
+    rebuildSections();
+  }
+
+  @Override
+  public boolean canMoveItems() {
+    // the order of the items is given by the sections and the comparator
+    return false;
+  }
+
+  @Override
+  public int getCount() {
+    return items.size() + sections.size();
+  }
+
+  @Override
+  public Object getItem(int position) {
+    int sectionOffset = 0;
+    int itemOffset = 0;
+    for(Section section : sections) {
+      if(position == sectionOffset) {
+        return section.title;
+      }
+      if(position <= (sectionOffset + section.count)) {
+        return items.get(itemOffset + (position - sectionOffset - 1));
+      }
+      sectionOffset += section.count + 1;
+      itemOffset += section.count;
+    }
+    throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + getCount());
+  }
+
+  @Override
+  public long getItemId(int position) {
+    int sectionIndex = getSectionIndex(position);
+    if(sectionIndex >= 0) {
+      return sections.get(sectionIndex).headerId;
+    }
+    return super.getItemId(position);
+  }
+
+  /**
+   * Creates a section with a header ID of its own. Header IDs are counted up from
+   * {@code Long.MIN_VALUE}, so they neither collide with the IDs of the items, nor shift when other
+   * sections are inserted or removed.
+   */
+  private Section newSection(CharSequence title) {
+    return new Section(title, Long.MIN_VALUE + (nextHeaderId++));
+  }
+
+  @Override
+  public int getViewTypeCount() {
+    return 2;
+  }
+
+  @Override
+  public int getItemViewType(int position) {
+    return (getSectionIndex(position) >= 0) ? ITEM_VIEW_TYPE_HEADER : ITEM_VIEW_TYPE_ITEM;
+  }
+
+  @Override
+  public boolean isEnabled(int position) {
+    return getSectionIndex(position) < 0;
+  }
+
+  @Override
+  public boolean areAllItemsEnabled() {
+    return sections.isEmpty();
+  }
+
+  /**
+   * Returns the header view for header positions, and the item view as created by
+   * {@link DashboardAdapter#getView(int, View, ViewGroup)} for all other positions.
+   *
+   * @see android.widget.Adapter#getView(int, android.view.View, android.view.ViewGroup)
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public View getView(int position, View convertView, ViewGroup parent) {
+    int sectionIndex = getSectionIndex(position);
+    if(sectionIndex < 0) {
+      return super.getView(position, convertView, parent);
+    }
+
+    TextView header = null;
+    if((convertView instanceof TextView) && !(convertView instanceof Button)) {
+      header = (TextView) convertView;
+    } else {
+      header = (TextView) getInflater().inflate(R.layout.dashboard_section_header, parent, false);
+    }
+    header.setText(sections.get(sectionIndex).title);
+    return header;
+  }
+
+  /**
+   * Inserts the given item at its sorted position, and notifies the observers about the single
+   * insert. If the item opens a new section, the insert of the section's header is notified as
+   * well.
+   *
+   * @param item The item to be inserted.
+   *
+   * @throws IllegalStateException If the comparator does not keep the section of the item
+   *                               contiguous.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void add(T item) {
+    int index = findInsertionIndex(item);
+    insertAt(index, item);
+  }
+
+  /**
+   * Removes the given item, and notifies the observers about the single removal. If the item was
+   * the last one of its section, the removal of the section's header is notified as well.
+   *
+   * @param item The item to be removed.
+   *
+   * @return {@code true} if the item was part of this adapter, {@code false} otherwise.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean remove(T item) {
+    int index = indexOfItem(item);
+    if(index < 0) {
+      return false;
+    }
+    removeAt(index);
+    return true;
+  }
+
+  /**
+   * <p>Repositions an item whose sort key or section has changed.</p>
+   * <p>As long as the set of sections stays the same, this results in exactly one move
+   * notification, so the {@link DashboardLayout} just moves the existing view. The moved item is
+   * also rebound, since the change of its key most likely affected its text as well.</p>
+   *
+   * @param item The item whose key changed.
+   *
+   * @return {@code true} if the item was part of this adapter, {@code false} otherwise.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public boolean onItemKeyChanged(T item) {
+    int oldIndex = indexOfItem(item);
+    if(oldIndex < 0) {
+      return false;
+    }
+
+    int oldSection = getSectionIndexForItem(oldIndex);
+    int oldPosition = getPosition(oldIndex);
+    Section section = sections.get(oldSection);
+    CharSequence title = sectionNamer.getSectionTitle(item);
+
+    if(section.count == 1) {
+      // The item is alone in its section. As long as it stays there, it
+      // cannot move at all, otherwise the section vanishes.
+      items.remove(oldIndex);
+      int newIndex = findInsertionIndex(item);
+      items.add(oldIndex, item);
+      if((newIndex == oldIndex) && section.matches(title)) {
+        notifyItemChanged(oldPosition);
+      } else {
+        removeAt(oldIndex);
+        add(item);
+      }
+      return true;
+    }
+
+    items.remove(oldIndex);
+    section.count--;
+    int newIndex = findInsertionIndex(item);
+    int newSection = findSectionForInsert(newIndex, title);
+    if(newSection < 0) {
+      // The item opens a new section: fall back to a removal followed by an
+      // insert, which also takes care of the new header.
+      items.add(oldIndex, item);
+      section.count++;
+      removeAt(oldIndex);
+      add(item);
+      return true;
+    }
+
+    items.add(newIndex, item);
+    sections.get(newSection).count++;
+
+    int newPosition = getPosition(newIndex);
+    notifyItemMoved(oldPosition, newPosition);
+    notifyItemChanged(newPosition);
+    return true;
+  }
+
+  /**
+   * Sorts all items again, e.g. after several keys have been changed at once, and notifies the
+   * observers that the whole data set has changed.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public void resort() {
+    rebuildSections();
+    notifyDataSetChanged();
+  }
+
+  /**
+   * Returns the number of sections.
+   *
+   * @return The number of sections.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getSectionCount() {
+    return sections.size();
+  }
+
+  /**
+   * Returns the index of the section whose header is shown at the given adapter position.
+   *
+   * @param position The adapter position.
+   *
+   * @return The index of the section, or {@code -1} if the position does not show a header.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getSectionIndex(int position) {
+    int sectionOffset = 0;
+    int sectionCount = sections.size();
+    for(int i = 0; i < sectionCount; i++) {
+      if(position == sectionOffset) {
+        return i;
+      }
+      sectionOffset += sections.get(i).count + 1;
+      if(position < sectionOffset) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Converts an adapter position into an index of the list returned by {@link #getList()}.
+   *
+   * @param position The adapter position.
+   *
+   * @return The index of the item, or {@code -1} if the position shows a header.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getItemIndex(int position) {
+    int sectionOffset = 0;
+    int itemOffset = 0;
+    for(Section section : sections) {
+      if(position == sectionOffset) {
+        return -1;
+      }
+      if(position <= (sectionOffset + section.count)) {
+        return itemOffset + (position - sectionOffset - 1);
+      }
+      sectionOffset += section.count + 1;
+      itemOffset += section.count;
+    }
+    return -1;
+  }
+
+  /**
+   * Converts an index of the list returned by {@link #getList()} into an adapter position.
+   *
+   * @param itemIndex The index of the item.
+   *
+   * @return The adapter position of the item.
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  public int getPosition(int itemIndex) {
+    int headers = 0;
+    int itemOffset = 0;
+    for(Section section : sections) {
+      headers++;
+      itemOffset += section.count;
+      if(itemIndex < itemOffset) {
+        break;
+      }
+    }
+    return itemIndex + headers;
+  }
+
+  private void insertAt(int index, T item) {
+    CharSequence title = sectionNamer.getSectionTitle(item);
+    int sectionIndex = findSectionForInsert(index, title);
+    if(sectionIndex >= 0) {
+      items.add(index, item);
+      sections.get(sectionIndex).count++;
+      notifyItemInserted(getPosition(index));
+      return;
+    }
+
+    // The item opens a new section, which must not split an existing one.
+    if((index > 0) && (index < items.size())
+        && (getSectionIndexForItem(index - 1) == getSectionIndexForItem(index))) {
+      throw new IllegalStateException("The comparator does not keep section '" + title
+          + "' contiguous.");
+    }
+    sectionIndex = (index < items.size()) ? getSectionIndexForItem(index) : sections.size();
+    Section section = newSection(title);
+    section.count = 1;
+    sections.add(sectionIndex, section);
+    items.add(index, item);
+    int position = getPosition(index);
+    notifyItemInserted(position - 1);
+    notifyItemInserted(position);
+  }
+
+  private void removeAt(int index) {
+    int sectionIndex = getSectionIndexForItem(index);
+    int position = getPosition(index);
+    Section section = sections.get(sectionIndex);
+    items.remove(index);
+    section.count--;
+    notifyItemRemoved(position);
+    if(section.count == 0) {
+      sections.remove(sectionIndex);
+      notifyItemRemoved(position - 1);
+    }
+  }
+
+  /**
+   * Returns the index of the existing section the item with the given title joins when inserted
+   * at the given index, or {@code -1} if it opens a new section.
+   */
+  private int findSectionForInsert(int index, CharSequence title) {
+    if(index > 0) {
+      int sectionIndex = getSectionIndexForItem(index - 1);
+      if(sections.get(sectionIndex).matches(title)) {
+        return sectionIndex;
+      }
+    }
+    if(index < items.size()) {
+      int sectionIndex = getSectionIndexForItem(index);
+      if(sections.get(sectionIndex).matches(title)) {
+        return sectionIndex;
+      }
+    }
+    return -1;
+  }
+
+  private int getSectionIndexForItem(int itemIndex) {
+    int itemOffset = 0;
+    int sectionCount = sections.size();
+    for(int i = 0; i < sectionCount; i++) {
+      itemOffset += sections.get(i).count;
+      if(itemIndex < itemOffset) {
+        return i;
+      }
+    }
+    return sectionCount - 1;
+  }
+
+  /**
+   * Finds the index at which the given item has to be inserted to keep the list sorted. Items
+   * comparing equal are inserted after the existing ones.
+   */
+  private int findInsertionIndex(T item) {
+    int low = 0;
+    int high = items.size();
+    while(low < high) {
+      int mid = (low + high) >>> 1;
+      if(comparator.compare(items.get(mid), item) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Looks the item up by identity. A binary search is not possible here, since the item's key may
+   * already have changed.
+   */
+  private int indexOfItem(T item) {
+    int size = items.size();
+    for(int i = 0; i < size; i++) {
+      if(items.get(i) == item) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void rebuildSections() {
+    Collections.sort(items, comparator);
+    sections.clear();
+    Section current = null;
+    for(T item : items) {
+      CharSequence title = sectionNamer.getSectionTitle(item);
+      if((current == null) || !current.matches(title)) {
+        current = newSection(title);
+        sections.add(current);
+      }
+      current.count++;
+    }
+  }
+
+  /**
+   * Returns the sorted list of items, without the headers. The list must not be modified directly,
+   * use the methods of this adapter instead.
+   *
+   * @return sorted list of items
+   *
+   * @since Class 1.0
+   * @since API 1.1.0
+   */
+  @Override
+  public List<T> getList() {
+    return Collections.unmodifiableList(items);
+  }
+}
@@ -54,6 +54,7 @@ public class SimpleDashboardItem implements DashboardItem {
   protected Drawable iconEnabled = null;
   protected Drawable iconDisabled = null;
   private DashboardItem.OnClickListener onClickListener = null;
+  private DashboardClickDispatcher clickDispatcher = null;
 
   /**
    * <p>Creates a new {@code ContainerDashboardItem} from the given parameters.</p>
@@ -175,9 +176,39 @@ public class SimpleDashboardItem implements DashboardItem {
     onClickListener = listener;
   }
 
+  /**
+   * Sets the {@link DashboardClickDispatcher} running the {@link DashboardItem.OnClickListener} of
+   * this item. Without a dispatcher, the listener is called synchronously on the UI thread.
+   *
+   * @param dispatcher The dispatcher, or {@code null} to call the listener synchronously.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public void setClickDispatcher(DashboardClickDispatcher dispatcher) {
+    clickDispatcher = dispatcher;
+  }
+
+  /**
+   * Returns the dispatcher the clicks on this item are dispatched through.
+   *
+   * @return The dispatcher, or {@code null} if none is attached.
+   *
+   * @since Class 1.1
+   * @since API 1.1.0
+   */
+  public DashboardClickDispatcher getClickDispatcher() {
+    return clickDispatcher;
+  }
+
   @Override
   public void onClick(View v) {
-    if(onClickListener != null) {
+    if(onClickListener == null) {
+      return;
+    }
+    if(clickDispatcher != null) {
+      clickDispatcher.dispatch(this, v, onClickListener);
+    } else {
       onClickListener.onClick(this);
     }
   }